@@ -0,0 +1,206 @@
+import java.util.Arrays;
+
+/**Finds the shortest route by mileage between a single pair of airports
+ * with the A* algorithm, using the great-circle distance to the
+ * destination as a lower bound on the mileage still to fly.
+ *
+ * The airports are taken from the heap by their mileage from the source
+ * plus their bound, so the search heads towards the destination and
+ * stops as soon as the destination is taken, instead of settling every
+ * airport nearer the source than it.
+ *
+ * The mileages in the file need not be exact great-circle distances (they
+ * are rounded, and may come from another source), so the great-circle
+ * distance is scaled by the smallest ratio of a flight's mileage to the
+ * great-circle distance it covers. The scaled distance of every flight is
+ * then no more than its mileage, so by the triangle inequality the bound
+ * never overestimates and the route found is a shortest one. Since the
+ * bound is rounded down to whole miles it can be slightly inconsistent, so
+ * an airport already taken from the heap is put back if a shorter path to
+ * it is found. If any airport has no position the bound is not used and
+ * the search is Dijkstra's algorithm stopped at the destination.
+ *
+ * As with BidirectionalDijkstra, the mileage is the same as in routes.txt
+ * but where two routes tie the one picked may differ. An instance should
+ * only be used by one thread at a time.
+ *
+ * @author smsukardi
+ */
+public class AStarSearch {
+
+    /** The graph, in sparse form for O(degree) neighbor lookups. */
+    private GraphCSR graph;
+    /** The positions of the airports. */
+    private AirportCoordinates coordinates;
+    /** The factor the great-circle distance is scaled by; 0 for none. */
+    private double scale;
+    /** The airports waiting to be taken, keyed by mileage plus bound. */
+    private IndexedHeap heap;
+    /** The best mileage from the source so far. */
+    private int[] distances;
+    /** The airport before each airport on its path from the source. */
+    private int[] predecessor;
+    /** The bound of each airport for the current destination, or -1 if
+     * it has not been worked out. */
+    private int[] bound;
+    /** The airports whose entries were changed by the current query. */
+    private int[] touched;
+    /** The no. of airports in touched. */
+    private int touchedCount;
+
+    /** The no. of airports taken from the heap by the last query. */
+    private int visited;
+    /** The mileage of the last route found, or INFINITY. */
+    private int distance;
+
+    /**Constructor.
+     * @param yourGraph the graph to search, copied once if not a GraphCSR
+     * @param coordinates the positions of the graph's airports
+     */
+    public AStarSearch(Graph yourGraph, AirportCoordinates coordinates) {
+        if (yourGraph instanceof GraphCSR) {
+            this.graph = (GraphCSR) yourGraph;
+        } else {
+            this.graph = GraphCSR.fromGraph(yourGraph);
+        }
+        this.graph.compact();
+        this.coordinates = coordinates;
+        this.scale = boundScale(this.graph, coordinates);
+        int n = this.graph.nodeCount();
+        this.heap = new IndexedHeap(n);
+        this.distances = new int[n];
+        this.predecessor = new int[n];
+        this.bound = new int[n];
+        this.touched = new int[n];
+        Arrays.fill(this.distances, Dijkstra.INFINITY);
+        Arrays.fill(this.predecessor, -1);
+        Arrays.fill(this.bound, -1);
+    }
+
+    /**Works out the factor to scale great-circle distances by so that no
+     * flight is shorter than its scaled distance.
+     * @param graph the graph
+     * @param coordinates the positions of the airports
+     * @return the smallest ratio of mileage to great-circle distance, or
+     * 0 if an airport has no position
+     */
+    public static double boundScale(GraphCSR graph,
+            AirportCoordinates coordinates) {
+        if (!coordinates.isComplete()) {
+            return 0;
+        }
+        double scale = Double.MAX_VALUE;
+        for (int u = 0; u < graph.nodeCount(); u++) {
+            for (int e = graph.firstEdge(u); e < graph.endEdge(u); e++) {
+                double miles = coordinates.distance(u, graph.edgeTarget(e));
+                if (miles > 0) {
+                    scale = Math.min(scale, graph.edgeWeight(e) / miles);
+                }
+            }
+        }
+        //no flight covers any distance, so there is nothing to scale by
+        if (scale == Double.MAX_VALUE) {
+            return 0;
+        }
+        return scale;
+    }
+
+    /** Gets the no. of airports taken from the heap by the last query.
+     * @return the no. of airports visited
+     */
+    public int getVisited() {
+        return this.visited;
+    }
+
+    /** Gets the mileage of the last route found.
+     * @return the mileage, or INFINITY if there was no route
+     */
+    public int getDistance() {
+        return this.distance;
+    }
+
+    /**Finds the shortest route between two airports by mileage.
+     * @param sourceNode the source node
+     * @param dest the destination node
+     * @return the nodes on the route, starting with the source; just the
+     * source if dest cannot be reached
+     */
+    public int[] mileagePath(int sourceNode, int dest) {
+        this.reset();
+        this.touch(sourceNode);
+        this.distances[sourceNode] = 0;
+        this.heap.insertOrDecrease(sourceNode,
+                this.boundOf(sourceNode, dest));
+        while (!this.heap.isEmpty()) {
+            int u = this.heap.pollMin();
+            this.visited++;
+            if (u == dest) {
+                break;
+            }
+            for (int e = this.graph.firstEdge(u);
+                    e < this.graph.endEdge(u); e++) {
+                int v = this.graph.edgeTarget(e);
+                int through = this.distances[u] + this.graph.edgeWeight(e);
+                if (through < this.distances[v]) {
+                    //also reopens v if it was taken with a longer path
+                    this.touch(v);
+                    this.distances[v] = through;
+                    this.predecessor[v] = u;
+                    this.heap.insertOrDecrease(v,
+                            through + this.boundOf(v, dest));
+                }
+            }
+        }
+        this.distance = this.distances[dest];
+        if (this.distance == Dijkstra.INFINITY) {
+            return new int[] {sourceNode};
+        }
+        int hops = 0;
+        for (int v = dest; v != sourceNode; v = this.predecessor[v]) {
+            hops++;
+        }
+        int[] path = new int[hops + 1];
+        for (int v = dest, i = hops; i >= 0; v = this.predecessor[v], i--) {
+            path[i] = v;
+        }
+        return path;
+    }
+
+    /**Returns the lower bound on the mileage from an airport to the
+     * destination, working it out the first time it is needed.
+     * @param v the airport
+     * @param dest the destination node
+     * @return the scaled great-circle distance, rounded down
+     */
+    private int boundOf(int v, int dest) {
+        this.touch(v);
+        if (this.bound[v] < 0) {
+            this.bound[v] = (int) (this.scale
+                    * this.coordinates.distance(v, dest));
+        }
+        return this.bound[v];
+    }
+
+    /**Records that an airport's entries are changed by this query.
+     * @param v the airport
+     */
+    private void touch(int v) {
+        if (this.distances[v] == Dijkstra.INFINITY && this.bound[v] < 0) {
+            this.touched[this.touchedCount++] = v;
+        }
+    }
+
+    /**Resets the entries changed by the last query.
+     */
+    private void reset() {
+        for (int i = 0; i < this.touchedCount; i++) {
+            int v = this.touched[i];
+            this.distances[v] = Dijkstra.INFINITY;
+            this.predecessor[v] = -1;
+            this.bound[v] = -1;
+        }
+        this.touchedCount = 0;
+        this.heap.clear();
+        this.visited = 0;
+    }
+}
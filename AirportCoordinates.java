@@ -0,0 +1,131 @@
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.util.HashMap;
+import java.util.Scanner;
+
+/**The positions of the airports of a graph on the globe, read from a file
+ * with one airport per line in the form "BWI 39.1754 -76.6683" (the code,
+ * then the latitude and longitude in degrees).
+ *
+ * Airports in the file which are not in the graph are ignored, and
+ * airports in the graph which are not in the file have no position.
+ *
+ * @author smsukardi
+ */
+public class AirportCoordinates {
+
+    /** The radius of the earth in miles. */
+    public static final double EARTH_RADIUS = 3958.8;
+
+    /** The latitude of each airport, in radians. */
+    private double[] latitude;
+    /** The longitude of each airport, in radians. */
+    private double[] longitude;
+    /** Each airport's position as a point on the unit sphere, as x, y and
+     * z in turn, so a distance needs no trigonometry but one asin. */
+    private double[] point;
+    /** Whether each airport has a position. */
+    private boolean[] known;
+    /** The no. of airports with a position. */
+    private int knownCount;
+
+    /**Constructor. No airport has a position yet.
+     * @param amtOfAirports the amount of airports
+     */
+    public AirportCoordinates(int amtOfAirports) {
+        this.latitude = new double[amtOfAirports];
+        this.longitude = new double[amtOfAirports];
+        this.point = new double[3 * amtOfAirports];
+        this.known = new boolean[amtOfAirports];
+    }
+
+    /**Reads the positions of a graph's airports from a file.
+     * @param fileName the file of positions
+     * @param yourGraph the graph holding the airport names
+     * @return the positions
+     * @throws FileNotFoundException if the file cannot be read
+     */
+    public static AirportCoordinates read(String fileName, Graph yourGraph)
+            throws FileNotFoundException {
+        int amtOfAirports = yourGraph.nodeCount();
+        HashMap<String, Integer> airports = new HashMap<String, Integer>();
+        for (int i = 0; i < amtOfAirports; i++) {
+            airports.put(yourGraph.getValue(i), i);
+        }
+        AirportCoordinates coordinates = new AirportCoordinates(
+                amtOfAirports);
+        Scanner input = new Scanner(new File(fileName));
+        while (input.hasNextLine()) {
+            String[] line = input.nextLine().trim().split("\\s+");
+            if (line.length < 3) {
+                continue;
+            }
+            Integer v = airports.get(line[0]);
+            if (v != null) {
+                coordinates.setPosition(v, Double.parseDouble(line[1]),
+                        Double.parseDouble(line[2]));
+            }
+        }
+        input.close();
+        return coordinates;
+    }
+
+    /**Sets the position of an airport.
+     * @param v the airport
+     * @param latitudeDegrees the latitude in degrees
+     * @param longitudeDegrees the longitude in degrees
+     */
+    public void setPosition(int v, double latitudeDegrees,
+            double longitudeDegrees) {
+        if (!this.known[v]) {
+            this.known[v] = true;
+            this.knownCount++;
+        }
+        this.latitude[v] = Math.toRadians(latitudeDegrees);
+        this.longitude[v] = Math.toRadians(longitudeDegrees);
+        double cosLatitude = Math.cos(this.latitude[v]);
+        this.point[3 * v] = cosLatitude * Math.cos(this.longitude[v]);
+        this.point[3 * v + 1] = cosLatitude * Math.sin(this.longitude[v]);
+        this.point[3 * v + 2] = Math.sin(this.latitude[v]);
+    }
+
+    /** Gets whether every airport has a position.
+     * @return true if none is missing
+     */
+    public boolean isComplete() {
+        return this.knownCount == this.known.length;
+    }
+
+    /**Returns the great-circle distance between two airports.
+     * @param u one airport
+     * @param v the other airport
+     * @return the distance in miles, or 0 if either has no position
+     */
+    public double distance(int u, int v) {
+        if (!this.known[u] || !this.known[v]) {
+            return 0;
+        }
+        //the straight line between the points is a chord of the circle
+        double dx = this.point[3 * u] - this.point[3 * v];
+        double dy = this.point[3 * u + 1] - this.point[3 * v + 1];
+        double dz = this.point[3 * u + 2] - this.point[3 * v + 2];
+        double chord = Math.sqrt(dx * dx + dy * dy + dz * dz);
+        return 2 * EARTH_RADIUS * Math.asin(Math.min(1, chord / 2));
+    }
+
+    /**Returns the great-circle distance between two points, by the
+     * Haversine formula.
+     * @param lat1 the latitude of the first point, in radians
+     * @param lon1 the longitude of the first point, in radians
+     * @param lat2 the latitude of the second point, in radians
+     * @param lon2 the longitude of the second point, in radians
+     * @return the distance in miles
+     */
+    public static double greatCircle(double lat1, double lon1, double lat2,
+            double lon2) {
+        double a = Math.pow(Math.sin((lat2 - lat1) / 2), 2)
+                + Math.cos(lat1) * Math.cos(lat2)
+                * Math.pow(Math.sin((lon2 - lon1) / 2), 2);
+        return 2 * EARTH_RADIUS * Math.asin(Math.min(1, Math.sqrt(a)));
+    }
+}
@@ -0,0 +1,157 @@
+import java.util.Arrays;
+
+/**Maps 3-letter airport codes to dense indices 0, 1, 2, ... in the order
+ * they are first seen.
+ *
+ * Each code is packed into an int (one byte per letter), and the table is
+ * an open-addressing hash table over primitive arrays, so looking up a
+ * code neither creates a String nor boxes an Integer.
+ *
+ * @author smsukardi
+ */
+public class AirportIndex {
+
+    /** Marks an empty slot in the table. */
+    private static final int EMPTY = -1;
+    /** The no. of bits in a packed code. */
+    private static final int CODE_BITS = 24;
+    /** The no. of bits in each letter of a packed code. */
+    private static final int LETTER_BITS = 8;
+    /** Mask for one letter of a packed code. */
+    private static final int LETTER = 0xFF;
+
+    /** The packed code in each slot. */
+    private int[] codes;
+    /** The index of the code in each slot, or EMPTY. */
+    private int[] indices;
+    /** The packed code of each index. */
+    private int[] codeOf;
+    /** The no. of codes in the table. */
+    private int size;
+
+    /**Constructor.
+     */
+    public AirportIndex() {
+        this.codes = new int[16];
+        this.indices = new int[16];
+        this.codeOf = new int[16];
+        Arrays.fill(this.indices, EMPTY);
+    }
+
+    /**Packs a 3-letter code into an int.
+     * @param first the first letter
+     * @param second the second letter
+     * @param third the third letter
+     * @return the packed code
+     */
+    public static int pack(int first, int second, int third) {
+        return ((first & LETTER) << (2 * LETTER_BITS))
+                | ((second & LETTER) << LETTER_BITS) | (third & LETTER);
+    }
+
+    /**Packs a 3-letter code into an int.
+     * @param code the code
+     * @return the packed code
+     */
+    public static int pack(String code) {
+        return pack(code.charAt(0), code.charAt(1), code.charAt(2));
+    }
+
+    /**Turns a packed code back into a String.
+     * @param code the packed code
+     * @return the 3-letter code
+     */
+    public static String unpack(int code) {
+        char[] letters = new char[CODE_BITS / LETTER_BITS];
+        for (int i = letters.length - 1; i >= 0; i--) {
+            letters[i] = (char) (code & LETTER);
+            code >>>= LETTER_BITS;
+        }
+        return new String(letters);
+    }
+
+    /** Returns the number of airports.
+     * @return the number of airports
+     */
+    public int size() {
+        return this.size;
+    }
+
+    /**Returns the index of a code, giving it the next index if it is new.
+     * @param code the packed code
+     * @return the index of the code
+     */
+    public int getOrAdd(int code) {
+        int slot = this.slot(code);
+        if (this.indices[slot] != EMPTY) {
+            return this.indices[slot];
+        }
+        if (this.size == this.codeOf.length) {
+            this.codeOf = Arrays.copyOf(this.codeOf, 2 * this.size);
+        }
+        this.codes[slot] = code;
+        this.indices[slot] = this.size;
+        this.codeOf[this.size] = code;
+        this.size++;
+        //keeps the table at most half full
+        if (2 * this.size > this.codes.length) {
+            this.rehash();
+        }
+        return this.size - 1;
+    }
+
+    /**Returns the index of a code.
+     * @param code the packed code
+     * @return the index of the code, or -1 if it has not been added
+     */
+    public int indexOf(int code) {
+        return this.indices[this.slot(code)];
+    }
+
+    /**Returns the packed code of an index.
+     * @param index the index
+     * @return the packed code
+     */
+    public int getCode(int index) {
+        return this.codeOf[index];
+    }
+
+    /**Returns the code of every index, as Strings.
+     * @return the codes, in index order
+     */
+    public String[] getNames() {
+        String[] names = new String[this.size];
+        for (int i = 0; i < this.size; i++) {
+            names[i] = unpack(this.codeOf[i]);
+        }
+        return names;
+    }
+
+    /**Finds the slot holding a code, or the empty slot where it would go.
+     * @param code the packed code
+     * @return the slot
+     */
+    private int slot(int code) {
+        int mask = this.codes.length - 1;
+        int hash = code * 0x9E3779B9;
+        int slot = (hash ^ (hash >>> 16)) & mask;
+        while (this.indices[slot] != EMPTY && this.codes[slot] != code) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    /**Doubles the size of the table.
+     */
+    private void rehash() {
+        int[] oldIndices = this.indices;
+        this.codes = new int[2 * oldIndices.length];
+        this.indices = new int[2 * oldIndices.length];
+        Arrays.fill(this.indices, EMPTY);
+        for (int i = 0; i < this.size; i++) {
+            int slot = this.slot(this.codeOf[i]);
+            this.codes[slot] = this.codeOf[i];
+            this.indices[slot] = i;
+        }
+    }
+}
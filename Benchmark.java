@@ -0,0 +1,513 @@
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**Times the route, frequency and skeleton code on networks made by
+ * NetworkGenerator, so that changes can be measured on realistic sizes.
+ *
+ * Each benchmark is run a few times to warm up the JIT, then timed over
+ * several more runs, and the mean and fastest times are printed. The
+ * searches are timed from a sample of sources, since a full run from
+ * every source takes minutes on the larger networks. The dense and
+ * legacy benchmarks are skipped once the adjacency matrix gets too big.
+ *
+ * @author smsukardi
+ */
+public final class Benchmark {
+
+    /** The most airports a GraphMatrix is built for. */
+    private static final int MATRIX_LIMIT = 5000;
+    /** The most airports routes are found from every source for. */
+    private static final int FULL_RUN_LIMIT = 2000;
+    /** The most airports the Floyd-Warshall matrices are built for. */
+    private static final int FLOYD_LIMIT = 1000;
+    /** The most airports a contraction hierarchy is built for, since the
+     * build takes minutes on the largest networks. */
+    private static final int HIERARCHY_LIMIT = 10000;
+    /** The no. of segments DynamicSkeleton removes and puts back. */
+    private static final int DYNAMIC_CHANGES = 500;
+    /** The no. of nanoseconds in a millisecond. */
+    private static final double NANOS_PER_MILLI = 1e6;
+
+    /** The no. of untimed runs of each benchmark. */
+    private int warmup = 2;
+    /** The no. of timed runs of each benchmark. */
+    private int iterations = 5;
+    /** Stops the JIT from dropping the work being timed. */
+    private long sink;
+
+    /**Empty constructor.
+     */
+    private Benchmark() {
+    }
+
+    /**Main method.
+     *
+     * @param args any of -airports #,#,..., -density #, -seed #,
+     * -threshold #, -sources #, -threads #, -warmup #, -iterations #
+     * @throws IOException if the generated network cannot be written
+     */
+    public static void main(String[] args) throws IOException {
+        int[] sizes = {100, 1000, 10000, 50000};
+        int density = 2;
+        long seed = 1;
+        int threshold = 3;
+        int sources = 64;
+        int parallelism = 1;
+        Benchmark bench = new Benchmark();
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            String value = args[i + 1];
+            if (args[i].equals("-airports")) {
+                String[] list = value.split(",");
+                sizes = new int[list.length];
+                for (int j = 0; j < list.length; j++) {
+                    sizes[j] = Integer.parseInt(list[j].trim());
+                }
+            } else if (args[i].equals("-density")) {
+                density = Integer.parseInt(value);
+            } else if (args[i].equals("-seed")) {
+                seed = Long.parseLong(value);
+            } else if (args[i].equals("-threshold")) {
+                threshold = Integer.parseInt(value);
+            } else if (args[i].equals("-sources")) {
+                sources = Integer.parseInt(value);
+            } else if (args[i].equals("-threads")) {
+                parallelism = RouteRunner.parallelism(Integer.parseInt(value));
+            } else if (args[i].equals("-warmup")) {
+                bench.warmup = Integer.parseInt(value);
+            } else if (args[i].equals("-iterations")) {
+                bench.iterations = Integer.parseInt(value);
+            }
+        }
+
+        for (int airports : sizes) {
+            bench.run(airports, density, seed, threshold, sources,
+                    parallelism);
+        }
+        System.out.println("checksum " + bench.sink);
+    }
+
+    /**Runs every benchmark on one generated network.
+     *
+     * @param airports the no. of airports
+     * @param density the no. of flights added with each airport
+     * @param seed the random seed
+     * @param threshold the max. no. of segments
+     * @param sources the no. of sources to time the searches from
+     * @param parallelism the no. of threads for the full runs
+     * @throws IOException if the network cannot be written
+     */
+    private void run(int airports, int density, long seed, int threshold,
+            int sources, int parallelism) throws IOException {
+        final File file = File.createTempFile("network", ".txt");
+        file.deleteOnExit();
+        final File positions = File.createTempFile("coordinates", ".txt");
+        positions.deleteOnExit();
+        PrintWriter output = new PrintWriter(file);
+        PrintWriter positionsOutput = new PrintWriter(positions);
+        NetworkGenerator.generate(airports, density, seed, output,
+                positionsOutput);
+        output.close();
+        positionsOutput.close();
+
+        final Graph sparse = RouteGenerator.readGraph(file.getPath(), true);
+        final int amtOfAirports = sparse.nodeCount();
+        final int maxSegments = RouteGenerator.maxSegments(threshold,
+                amtOfAirports);
+        final int[] sample = sample(amtOfAirports, sources, seed);
+        System.out.println(amtOfAirports + " airports, "
+                + sparse.edgeCount() / 2 + " flights, threshold "
+                + maxSegments + ", " + sample.length + " sources");
+
+        this.time("FlightReader", () -> {
+            try {
+                this.sink += RouteGenerator.readGraph(file.getPath(), true)
+                        .edgeCount();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+
+        //the legacy O(V^2) searches over the adjacency matrix
+        if (amtOfAirports <= MATRIX_LIMIT) {
+            final Graph matrix = RouteGenerator.readGraph(file.getPath(),
+                    false);
+            final Graph unit = new GraphMatrix();
+            unit.init(amtOfAirports);
+            for (int i = 0; i < amtOfAirports; i++) {
+                unit.setValue(i, matrix.getValue(i));
+                for (int j : matrix.neighbors(i)) {
+                    unit.addEdge(i, j, 1);
+                }
+            }
+            final Dijkstra legacy = new Dijkstra(amtOfAirports);
+            this.time("GraphMatrix.neighbors", () -> {
+                for (int v = 0; v < amtOfAirports; v++) {
+                    this.sink += matrix.neighbors(v).length;
+                }
+            });
+            this.time("Dijkstra.dijkstra", () -> {
+                for (int source : sample) {
+                    this.sink += legacy.dijkstra(matrix, source,
+                            new int[amtOfAirports]).length;
+                }
+            });
+            this.time("Dijkstra.modifiedDijkstra", () -> {
+                for (int source : sample) {
+                    this.sink += legacy.modifiedDijkstra(unit, matrix, source,
+                            new int[amtOfAirports]).length;
+                }
+            });
+        } else {
+            skip("GraphMatrix.neighbors");
+            skip("Dijkstra.dijkstra");
+            skip("Dijkstra.modifiedDijkstra");
+        }
+
+        final RouteEngine engine = new RouteEngine(sparse);
+        final GraphCSR graph = engine.getGraph();
+        this.time("RouteEngine.routes", () -> {
+            for (int source : sample) {
+                this.sink += engine.routes(source, maxSegments)
+                        .getMileageTree().getDistance(0);
+            }
+        });
+        //one route from each sampled source to the next one
+        final BidirectionalDijkstra pairs = new BidirectionalDijkstra(graph);
+        this.time("BidirectionalDijkstra.route", () -> {
+            for (int i = 0; i < sample.length; i++) {
+                this.sink += pairs.route(sample[i],
+                        sample[(i + 1) % sample.length], maxSegments).length;
+            }
+        });
+        //the same pairs by mileage with A*, and the airports each search
+        //visits, against Dijkstra's algorithm stopped at the destination
+        final AStarSearch aStar = new AStarSearch(graph,
+                AirportCoordinates.read(positions.getPath(), graph));
+        this.time("AStarSearch.mileagePath", () -> {
+            for (int i = 0; i < sample.length; i++) {
+                this.sink += aStar.mileagePath(sample[i],
+                        sample[(i + 1) % sample.length]).length;
+            }
+        });
+        AStarSearch unguided = new AStarSearch(graph,
+                new AirportCoordinates(amtOfAirports));
+        long aStarVisited = 0;
+        long dijkstraVisited = 0;
+        long bidirectionalVisited = 0;
+        for (int i = 0; i < sample.length; i++) {
+            int dest = sample[(i + 1) % sample.length];
+            aStar.mileagePath(sample[i], dest);
+            aStarVisited += aStar.getVisited();
+            unguided.mileagePath(sample[i], dest);
+            dijkstraVisited += unguided.getVisited();
+            pairs.mileagePath(sample[i], dest);
+            bidirectionalVisited += pairs.getVisited();
+        }
+        count("AStarSearch airports visited", aStarVisited, sample.length);
+        count("Dijkstra airports visited", dijkstraVisited, sample.length);
+        count("BidirectionalDijkstra airports visited",
+                bidirectionalVisited, sample.length);
+        if (amtOfAirports <= HIERARCHY_LIMIT) {
+            final ContractionHierarchy hierarchy =
+                    ContractionHierarchy.build(graph);
+            this.time("ContractionHierarchy.mileagePath", () -> {
+                for (int i = 0; i < sample.length; i++) {
+                    this.sink += hierarchy.mileagePath(sample[i],
+                            sample[(i + 1) % sample.length]).length;
+                }
+            });
+        } else {
+            skip("ContractionHierarchy.mileagePath");
+        }
+        if (amtOfAirports <= FULL_RUN_LIMIT) {
+            this.time("ContractionHierarchy.build", () -> {
+                this.sink += ContractionHierarchy.build(graph)
+                        .shortcutCount();
+            });
+        } else {
+            skip("ContractionHierarchy.build");
+        }
+        this.time("RouteGenerator.formatRoutes", () -> {
+            for (int source : sample) {
+                this.sink += RouteGenerator.formatRoutes(
+                        engine.routes(source, maxSegments), graph).length();
+            }
+        });
+
+        //counts the routes from the sample into a fresh frequency graph
+        final List<SourceRoutes> routes = new ArrayList<SourceRoutes>();
+        for (int source : sample) {
+            routes.add(engine.routes(source, maxSegments));
+        }
+        final Graph[] counted = new Graph[1];
+        this.time("FrequencyGenerator.countRoutes", () -> {
+            Graph frequencies = frequencyGraph(graph);
+            for (SourceRoutes route : routes) {
+                FrequencyGenerator.countRoutes(route, frequencies);
+            }
+            this.sink += frequencies.edgeCount();
+            counted[0] = frequencies;
+        });
+        //counts the same routes again from a routes.txt of them
+        final File routesFile = File.createTempFile("routes", ".txt");
+        routesFile.deleteOnExit();
+        PrintWriter routesOutput = new PrintWriter(routesFile);
+        for (SourceRoutes route : routes) {
+            routesOutput.print(RouteGenerator.formatRoutes(route, graph));
+        }
+        routesOutput.close();
+        this.time("RouteCounter.count", () -> {
+            try {
+                this.sink += RouteCounter.count(routesFile.getPath(),
+                        parallelism).nodeCount();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        //writes the frequencies as the grid and as an edge list, and reads
+        //the edge list back
+        final File frequencyFile = File.createTempFile("frequencies",
+                ".txt");
+        frequencyFile.deleteOnExit();
+        if (amtOfAirports <= FULL_RUN_LIMIT) {
+            this.time("Graph.printGraphToFile", () -> {
+                this.sink += writeFile(counted[0], frequencyFile, false);
+            });
+        } else {
+            skip("Graph.printGraphToFile");
+        }
+        this.time("EdgeListFile.write", () -> {
+            this.sink += writeFile(counted[0], frequencyFile, true);
+        });
+        this.time("EdgeListFile.read", () -> {
+            try {
+                this.sink += EdgeListFile.read(frequencyFile.getPath(),
+                        new SegmentCounter()).edgeCount();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        //removes random segments and puts them back, one at a time
+        final DynamicSkeleton dynamic = new DynamicSkeleton(counted[0]);
+        final long[] segments = ((SegmentCounter) counted[0]).segments();
+        final Random random = new Random(seed);
+        this.time("DynamicSkeleton.addFrequency", () -> {
+            for (int k = 0; k < DYNAMIC_CHANGES && segments.length > 0;
+                    k++) {
+                long segment = segments[random.nextInt(segments.length)];
+                int from = (int) (segment >>> 32);
+                int to = (int) segment;
+                int count = dynamic.getFrequency(from, to);
+                this.sink += dynamic.addFrequency(from, to, -count).size();
+                this.sink += dynamic.addFrequency(from, to, count).size();
+            }
+        });
+        this.time("SkeletonGenerator.buildSkeleton", () -> {
+            this.sink += SkeletonGenerator.buildSkeleton(counted[0], true)
+                    .edgeCount();
+        });
+        this.timeSkeletonParts(graph, seed, parallelism);
+
+        if (amtOfAirports <= FLOYD_LIMIT) {
+            this.time("FloydWarshall (all pairs)", () -> {
+                this.sink += new FloydWarshall(graph, parallelism)
+                        .getDistance(0, amtOfAirports - 1);
+            });
+        } else {
+            skip("FloydWarshall (all pairs)");
+        }
+
+        //the whole of RouteGenerator, from every source
+        if (amtOfAirports <= FULL_RUN_LIMIT) {
+            this.time("RouteGenerator (all sources)", () -> {
+                RouteRunner.run(engine, maxSegments, parallelism,
+                    route -> RouteGenerator.formatRoutes(route, graph),
+                    text -> this.sink += text.length());
+            });
+            this.time("FlightPipeline counting (all sources)", () -> {
+                final Graph frequencies = frequencyGraph(graph);
+                RouteRunner.run(engine, maxSegments, parallelism,
+                    route -> route,
+                    route -> FrequencyGenerator.countRoutes(route,
+                            frequencies));
+                this.sink += frequencies.edgeCount();
+            });
+        } else {
+            skip("RouteGenerator (all sources)");
+            skip("FlightPipeline counting (all sources)");
+        }
+        System.out.println();
+    }
+
+    /**Times the sort and union-find steps of building the skeleton, using
+     * random frequencies on the network's flights.
+     *
+     * @param graph the network
+     * @param seed the random seed
+     * @param parallelism the no. of threads for Boruvka's algorithm
+     */
+    private void timeSkeletonParts(GraphCSR graph, long seed,
+            final int parallelism) {
+        Random random = new Random(seed);
+        final int amtOfAirports = graph.nodeCount();
+        int edges = 0;
+        for (int v = 0; v < amtOfAirports; v++) {
+            for (int w : graph.neighbors(v)) {
+                if (v < w) {
+                    edges++;
+                }
+            }
+        }
+        final int count = edges;
+        final int[] from = new int[count];
+        final int[] to = new int[count];
+        final int[] frequency = new int[count];
+        final ArrayList<Pair> pairs = new ArrayList<Pair>(count);
+        edges = 0;
+        for (int v = 0; v < amtOfAirports; v++) {
+            for (int w : graph.neighbors(v)) {
+                if (v < w) {
+                    from[edges] = v;
+                    to[edges] = w;
+                    frequency[edges] = 1 + random.nextInt(amtOfAirports);
+                    pairs.add(new Pair(graph.getValue(v), graph.getValue(w),
+                            frequency[edges]));
+                    edges++;
+                }
+            }
+        }
+
+        this.time("SkeletonGenerator.sort", () -> {
+            ArrayList<Pair> copy = new ArrayList<Pair>(pairs);
+            SkeletonGenerator.sort(copy);
+            this.sink += copy.get(0).getWeight();
+        });
+        final int[] order = SkeletonBuilder.sortByFrequency(frequency, count);
+        this.time("UnionFind", () -> {
+            UnionFind sets = new UnionFind(amtOfAirports);
+            for (int e : order) {
+                if (sets.union(from[e], to[e])) {
+                    this.sink++;
+                }
+            }
+        });
+        this.time("SkeletonBuilder.kruskal", () -> {
+            this.sink += SkeletonBuilder.kruskal(amtOfAirports, from, to,
+                    frequency, count).length;
+        });
+        this.time("SkeletonBuilder.boruvka", () -> {
+            this.sink += SkeletonBuilder.boruvka(amtOfAirports, from, to,
+                    frequency, count, parallelism).length;
+        });
+    }
+
+    /**Runs a benchmark and prints how long it took.
+     *
+     * @param name the name to print
+     * @param work the work to time
+     */
+    private void time(String name, Runnable work) {
+        for (int i = 0; i < this.warmup; i++) {
+            work.run();
+        }
+        long total = 0;
+        long fastest = Long.MAX_VALUE;
+        for (int i = 0; i < this.iterations; i++) {
+            long start = System.nanoTime();
+            work.run();
+            long elapsed = System.nanoTime() - start;
+            total += elapsed;
+            fastest = Math.min(fastest, elapsed);
+        }
+        System.out.println(String.format("  %-40s %12.3f ms %12.3f ms min",
+                name, total / NANOS_PER_MILLI / Math.max(this.iterations, 1),
+                fastest / NANOS_PER_MILLI));
+    }
+
+    /**Prints the average of a count over a no. of queries.
+     *
+     * @param name the name to print
+     * @param total the count over every query
+     * @param queries the no. of queries
+     */
+    private static void count(String name, long total, int queries) {
+        System.out.println(String.format("  %-40s %12.1f per query", name,
+                (double) total / Math.max(queries, 1)));
+    }
+
+    /**Prints that a benchmark was skipped for this size.
+     *
+     * @param name the name to print
+     */
+    private static void skip(String name) {
+        System.out.println(String.format("  %-40s %15s", name, "skipped"));
+    }
+
+    /**Picks the sources to time the searches from.
+     *
+     * @param amtOfAirports the no. of airports
+     * @param sources the no. of sources wanted
+     * @param seed the random seed
+     * @return distinct airport indices, every airport if there are fewer
+     */
+    private static int[] sample(int amtOfAirports, int sources, long seed) {
+        int[] airports = new int[amtOfAirports];
+        for (int i = 0; i < amtOfAirports; i++) {
+            airports[i] = i;
+        }
+        //a partial Fisher-Yates shuffle
+        Random random = new Random(seed);
+        int size = Math.min(sources, amtOfAirports);
+        for (int i = 0; i < size; i++) {
+            int j = i + random.nextInt(amtOfAirports - i);
+            int swap = airports[i];
+            airports[i] = airports[j];
+            airports[j] = swap;
+        }
+        int[] sample = new int[size];
+        System.arraycopy(airports, 0, sample, 0, size);
+        return sample;
+    }
+
+    /**Prints a graph to a file.
+     *
+     * @param yourGraph the graph
+     * @param file the file
+     * @param edges whether to print an edge list instead of the grid
+     * @return the length of the file
+     */
+    private static long writeFile(Graph yourGraph, File file,
+            boolean edges) {
+        try {
+            PrintWriter output = new PrintWriter(file);
+            if (edges) {
+                EdgeListFile.write(yourGraph, output);
+            } else {
+                yourGraph.printGraphToFile(output);
+            }
+            output.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return file.length();
+    }
+
+    /**Constructs an empty frequency graph with the same airports.
+     *
+     * @param graph the network
+     * @return the frequency graph
+     */
+    private static Graph frequencyGraph(Graph graph) {
+        Graph frequencies = new SegmentCounter();
+        frequencies.init(graph.nodeCount());
+        for (int i = 0; i < graph.nodeCount(); i++) {
+            frequencies.setValue(i, graph.getValue(i));
+        }
+        return frequencies;
+    }
+}
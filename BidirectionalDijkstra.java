@@ -0,0 +1,468 @@
+import java.util.Arrays;
+
+/**Finds the route between a single pair of airports by searching from both
+ * ends at once, instead of finding the routes to every airport.
+ *
+ * By mileage, Dijkstra's algorithm runs forwards from the source and
+ * backwards from the destination, always growing the side whose next
+ * airport is nearer. Each flight from a settled airport to one reached by
+ * the other side gives a candidate route, and the search stops once the
+ * nearest unsettled airports on both sides add up to no less than the
+ * best candidate, when no shorter route can be left. By no. of segments,
+ * a breadth-first search grows the smaller frontier one level at a time
+ * and stops at the end of the first level where the two sides meet.
+ *
+ * route() picks between the two as RouteGenerator does: the route by
+ * mileage if it has no more than threshold segments, and otherwise the
+ * route with the fewest segments. Where two routes by mileage tie, the
+ * route picked may differ from the one in routes.txt, since the full
+ * search breaks ties by the order in which it settles every airport
+ * nearer the source. So may its mileage: routes.txt falls back to the
+ * route with the fewest segments when the tied route it picked is over
+ * the threshold, even if another tied route is within it.
+ *
+ * Only the airports touched by a query are reset afterwards, so a query
+ * which settles few airports is cheap however big the network is. An
+ * instance should only be used by one thread at a time.
+ *
+ * @author smsukardi
+ */
+public class BidirectionalDijkstra {
+
+    /** The graph, searched forwards from the source. */
+    private GraphCSR graph;
+    /** The graph with every flight turned round, searched backwards from
+     * the destination; the graph itself if every flight goes both ways. */
+    private GraphCSR reverse;
+    /** Stores the amount of airports. */
+    private int amtOfAirports;
+    /** The airports whose distance from the source is not yet final. */
+    private IndexedHeap forwardHeap;
+    /** The airports whose distance to the destination is not yet final. */
+    private IndexedHeap backwardHeap;
+    /** The best distance (or no. of segments) from the source so far. */
+    private int[] forwardDistance;
+    /** The best distance (or no. of segments) to the destination so far. */
+    private int[] backwardDistance;
+    /** The airport before each airport on its path from the source. */
+    private int[] forwardPredecessor;
+    /** The airport after each airport on its path to the destination. */
+    private int[] backwardSuccessor;
+    /** Whether each airport's distance from the source is final. */
+    private boolean[] forwardSettled;
+    /** Whether each airport's distance to the destination is final. */
+    private boolean[] backwardSettled;
+    /** Whether each airport beyond the forward breadth-first search is on
+     * a route with the fewest segments. */
+    private boolean[] onRoute;
+    /** The airports whose entries were changed by the current query. */
+    private int[] touched;
+    /** The no. of airports in touched. */
+    private int touchedCount;
+    /** The frontiers of the breadth-first searches. */
+    private int[] forwardFrontier;
+    /** The airports one level on from forwardFrontier. */
+    private int[] nextFrontier;
+    /** The frontier of the breadth-first search from the destination. */
+    private int[] backwardFrontier;
+
+    /** The no. of airports settled by the last query. */
+    private int visited;
+    /** The length of the last route found, or INFINITY. */
+    private int distance;
+
+    /**Constructor.
+     * @param yourGraph the graph to search, copied once if not a GraphCSR
+     */
+    public BidirectionalDijkstra(Graph yourGraph) {
+        if (yourGraph instanceof GraphCSR) {
+            this.graph = (GraphCSR) yourGraph;
+        } else {
+            this.graph = GraphCSR.fromGraph(yourGraph);
+        }
+        this.graph.compact();
+        this.amtOfAirports = this.graph.nodeCount();
+        if (isSymmetric(this.graph)) {
+            this.reverse = this.graph;
+        } else {
+            this.reverse = transpose(this.graph);
+        }
+        int n = this.amtOfAirports;
+        this.forwardHeap = new IndexedHeap(n);
+        this.backwardHeap = new IndexedHeap(n);
+        this.forwardDistance = new int[n];
+        this.backwardDistance = new int[n];
+        this.forwardPredecessor = new int[n];
+        this.backwardSuccessor = new int[n];
+        this.forwardSettled = new boolean[n];
+        this.backwardSettled = new boolean[n];
+        this.onRoute = new boolean[n];
+        this.touched = new int[n];
+        this.forwardFrontier = new int[n];
+        this.nextFrontier = new int[n];
+        this.backwardFrontier = new int[n];
+        Arrays.fill(this.forwardDistance, Dijkstra.INFINITY);
+        Arrays.fill(this.backwardDistance, Dijkstra.INFINITY);
+        Arrays.fill(this.forwardPredecessor, -1);
+        Arrays.fill(this.backwardSuccessor, -1);
+    }
+
+    /**Returns whether every flight has the same positive mileage both
+     * ways, so that the graph is its own reverse.
+     * @param graph the graph, compacted
+     * @return true if the graph need not be reversed
+     */
+    private static boolean isSymmetric(GraphCSR graph) {
+        for (int u = 0; u < graph.nodeCount(); u++) {
+            for (int e = graph.firstEdge(u); e < graph.endEdge(u); e++) {
+                int v = graph.edgeTarget(e);
+                if (graph.edgeWeight(e) <= 0
+                        || graph.getWeight(v, u) != graph.edgeWeight(e)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**Builds the graph with every flight turned round.
+     * @param graph the graph
+     * @return the reversed graph
+     */
+    private static GraphCSR transpose(GraphCSR graph) {
+        int edges = graph.edgeCount();
+        int[] from = new int[edges];
+        int[] to = new int[edges];
+        int[] weight = new int[edges];
+        String[] names = new String[graph.nodeCount()];
+        int count = 0;
+        for (int u = 0; u < graph.nodeCount(); u++) {
+            names[u] = graph.getValue(u);
+            for (int e = graph.firstEdge(u); e < graph.endEdge(u); e++) {
+                from[count] = graph.edgeTarget(e);
+                to[count] = u;
+                weight[count] = graph.edgeWeight(e);
+                count++;
+            }
+        }
+        return GraphCSR.fromEdges(names, from, to, weight, count);
+    }
+
+    /** Gets the no. of airports settled by the last query, from both ends.
+     * @return the no. of airports visited
+     */
+    public int getVisited() {
+        return this.visited;
+    }
+
+    /** Gets the length of the last route found: its mileage, or its no.
+     * of segments for segmentPath.
+     * @return the length, or INFINITY if there was no route
+     */
+    public int getDistance() {
+        return this.distance;
+    }
+
+    /**Finds the route between two airports under a segment threshold, as
+     * RouteGenerator picks it, apart from ties (see above).
+     * @param sourceNode the source node
+     * @param dest the destination node
+     * @param threshold the max. no. of segments of a route chosen by mileage
+     * @return the nodes on the route, starting with the source; just the
+     * source if dest cannot be reached
+     */
+    public int[] route(int sourceNode, int dest, int threshold) {
+        int[] path = this.mileagePath(sourceNode, dest);
+        if (path.length - 1 <= threshold) {
+            return path;
+        }
+        int settled = this.visited;
+        path = this.segmentPath(sourceNode, dest);
+        this.visited += settled;
+        return path;
+    }
+
+    /**Finds the shortest route between two airports by mileage.
+     * @param sourceNode the source node
+     * @param dest the destination node
+     * @return the nodes on the route, starting with the source; just the
+     * source if dest cannot be reached
+     */
+    public int[] mileagePath(int sourceNode, int dest) {
+        this.reset();
+        this.touch(sourceNode);
+        this.forwardDistance[sourceNode] = 0;
+        this.touch(dest);
+        this.backwardDistance[dest] = 0;
+        this.forwardHeap.insertOrDecrease(sourceNode, 0);
+        this.backwardHeap.insertOrDecrease(dest, 0);
+        int best = sourceNode == dest ? 0 : Dijkstra.INFINITY;
+        int meetFrom = -1;
+        int meetTo = -1;
+
+        while (!this.forwardHeap.isEmpty() && !this.backwardHeap.isEmpty()
+                && (long) this.forwardHeap.minKey()
+                        + this.backwardHeap.minKey() < best) {
+            boolean forward = this.forwardHeap.minKey()
+                    <= this.backwardHeap.minKey();
+            GraphCSR searched = forward ? this.graph : this.reverse;
+            int[] near = forward ? this.forwardDistance
+                    : this.backwardDistance;
+            int[] far = forward ? this.backwardDistance
+                    : this.forwardDistance;
+            int[] link = forward ? this.forwardPredecessor
+                    : this.backwardSuccessor;
+            boolean[] settled = forward ? this.forwardSettled
+                    : this.backwardSettled;
+            IndexedHeap heap = forward ? this.forwardHeap
+                    : this.backwardHeap;
+
+            int u = heap.pollMin();
+            settled[u] = true;
+            this.visited++;
+            for (int e = searched.firstEdge(u); e < searched.endEdge(u);
+                    e++) {
+                int v = searched.edgeTarget(e);
+                if (settled[v]) {
+                    continue;
+                }
+                int through = near[u] + searched.edgeWeight(e);
+                if (through < near[v]) {
+                    this.touch(v);
+                    near[v] = through;
+                    link[v] = u;
+                    heap.insertOrDecrease(v, through);
+                }
+                //a flight into the other side's search joins the two
+                if (far[v] < Dijkstra.INFINITY
+                        && (long) through + far[v] < best) {
+                    best = through + far[v];
+                    meetFrom = forward ? u : v;
+                    meetTo = forward ? v : u;
+                }
+            }
+        }
+        this.distance = best;
+        //no route, or the source is the destination
+        if (meetFrom < 0) {
+            return new int[] {sourceNode};
+        }
+        return this.joinPath(sourceNode, meetFrom, meetTo);
+    }
+
+    /**Finds the route between two airports with the fewest segments: the
+     * same route as in RouteEngine.segmentSearch, where the airport before
+     * each airport is its highest-index neighbor one segment closer to
+     * the source.
+     * @param sourceNode the source node
+     * @param dest the destination node
+     * @return the nodes on the route, starting with the source; just the
+     * source if dest cannot be reached
+     */
+    public int[] segmentPath(int sourceNode, int dest) {
+        this.reset();
+        this.touch(sourceNode);
+        this.forwardDistance[sourceNode] = 0;
+        this.touch(dest);
+        this.backwardDistance[dest] = 0;
+        this.distance = 0;
+        if (sourceNode == dest) {
+            return new int[] {sourceNode};
+        }
+        this.forwardFrontier[0] = sourceNode;
+        this.backwardFrontier[0] = dest;
+        int forwardSize = 1;
+        int backwardSize = 1;
+        int forwardLevels = 0;
+        int best = Dijkstra.INFINITY;
+
+        while (forwardSize > 0 && backwardSize > 0
+                && best == Dijkstra.INFINITY) {
+            //grows the smaller frontier by a whole level
+            boolean forward = forwardSize <= backwardSize;
+            GraphCSR searched = forward ? this.graph : this.reverse;
+            int[] near = forward ? this.forwardDistance
+                    : this.backwardDistance;
+            int[] far = forward ? this.backwardDistance
+                    : this.forwardDistance;
+            int[] frontier = forward ? this.forwardFrontier
+                    : this.backwardFrontier;
+            int size = forward ? forwardSize : backwardSize;
+            int nextSize = 0;
+            for (int i = 0; i < size; i++) {
+                int u = frontier[i];
+                this.visited++;
+                for (int e = searched.firstEdge(u); e < searched.endEdge(u);
+                        e++) {
+                    //only flights with a positive mileage count as segments
+                    if (searched.edgeWeight(e) <= 0) {
+                        continue;
+                    }
+                    int v = searched.edgeTarget(e);
+                    if (far[v] < Dijkstra.INFINITY) {
+                        best = Math.min(best, near[u] + 1 + far[v]);
+                    }
+                    if (near[v] == Dijkstra.INFINITY) {
+                        this.touch(v);
+                        near[v] = near[u] + 1;
+                        this.nextFrontier[nextSize++] = v;
+                    }
+                }
+            }
+            int[] temp = frontier;
+            if (forward) {
+                this.forwardFrontier = this.nextFrontier;
+                forwardSize = nextSize;
+                forwardLevels++;
+            } else {
+                this.backwardFrontier = this.nextFrontier;
+                backwardSize = nextSize;
+            }
+            this.nextFrontier = temp;
+        }
+        this.distance = best;
+        if (best == Dijkstra.INFINITY) {
+            return new int[] {sourceNode};
+        }
+        this.markRouteAirports(best, forwardLevels);
+        return this.highestIndexPath(sourceNode, dest, best, forwardLevels);
+    }
+
+    /**Marks the airports beyond the forward search which are on a route
+     * with the fewest segments, as onRoute. Every airport within
+     * forwardLevels segments of the source has been reached from it, so
+     * the routes cross that level at airports which were reached from
+     * both ends; from there the routes are followed a segment at a time
+     * through airports each one segment nearer the destination.
+     * @param length the no. of segments on the routes
+     * @param forwardLevels the no. of levels searched from the source
+     */
+    private void markRouteAirports(int length, int forwardLevels) {
+        if (forwardLevels >= length) {
+            return;
+        }
+        int size = 0;
+        for (int i = 0; i < this.touchedCount; i++) {
+            int v = this.touched[i];
+            if (this.forwardDistance[v] == forwardLevels
+                    && this.backwardDistance[v] == length - forwardLevels) {
+                this.forwardFrontier[size++] = v;
+            }
+        }
+        while (size > 0) {
+            int nextSize = 0;
+            for (int i = 0; i < size; i++) {
+                int u = this.forwardFrontier[i];
+                for (int e = this.graph.firstEdge(u);
+                        e < this.graph.endEdge(u); e++) {
+                    int v = this.graph.edgeTarget(e);
+                    if (this.graph.edgeWeight(e) > 0 && !this.onRoute[v]
+                            && this.backwardDistance[v]
+                                    == this.backwardDistance[u] - 1) {
+                        this.onRoute[v] = true;
+                        this.nextFrontier[nextSize++] = v;
+                    }
+                }
+            }
+            int[] temp = this.forwardFrontier;
+            this.forwardFrontier = this.nextFrontier;
+            this.nextFrontier = temp;
+            size = nextSize;
+        }
+    }
+
+    /**Walks back from the destination, taking the highest-index airport
+     * one segment nearer the source each time, as segmentSearch does.
+     * @param sourceNode the source node
+     * @param dest the destination node
+     * @param length the no. of segments on the routes
+     * @param forwardLevels the no. of levels searched from the source
+     * @return the nodes on the route, starting with the source
+     */
+    private int[] highestIndexPath(int sourceNode, int dest, int length,
+            int forwardLevels) {
+        int[] path = new int[length + 1];
+        path[length] = dest;
+        for (int h = length; h > 0; h--) {
+            int w = path[h];
+            int before = -1;
+            for (int e = this.reverse.firstEdge(w);
+                    e < this.reverse.endEdge(w); e++) {
+                int u = this.reverse.edgeTarget(e);
+                if (this.reverse.edgeWeight(e) <= 0 || u <= before) {
+                    continue;
+                }
+                //an airport h - 1 segments from the source, known from
+                //the forward search if it got that far
+                if (h - 1 <= forwardLevels
+                        ? this.forwardDistance[u] == h - 1
+                        : this.onRoute[u]
+                                && this.backwardDistance[u]
+                                        == length - h + 1) {
+                    before = u;
+                }
+            }
+            path[h - 1] = before;
+        }
+        return path;
+    }
+
+    /**Joins the path from the source to a flight with the path from the
+     * end of the flight to the destination.
+     * @param sourceNode the source node
+     * @param meetFrom the start of the flight, reached from the source
+     * @param meetTo the end of the flight, reached from the destination
+     * @return the nodes on the route, starting with the source
+     */
+    private int[] joinPath(int sourceNode, int meetFrom, int meetTo) {
+        int before = 0;
+        for (int v = meetFrom; v != sourceNode;
+                v = this.forwardPredecessor[v]) {
+            before++;
+        }
+        int after = 0;
+        for (int v = meetTo; this.backwardSuccessor[v] >= 0;
+                v = this.backwardSuccessor[v]) {
+            after++;
+        }
+        int[] path = new int[before + after + 2];
+        int i = before;
+        for (int v = meetFrom; i >= 0; v = this.forwardPredecessor[v]) {
+            path[i--] = v;
+        }
+        i = before + 1;
+        for (int v = meetTo; v >= 0; v = this.backwardSuccessor[v]) {
+            path[i++] = v;
+        }
+        return path;
+    }
+
+    /**Records that an airport's entries are changed by this query.
+     * @param v the airport
+     */
+    private void touch(int v) {
+        if (this.forwardDistance[v] == Dijkstra.INFINITY
+                && this.backwardDistance[v] == Dijkstra.INFINITY) {
+            this.touched[this.touchedCount++] = v;
+        }
+    }
+
+    /**Resets the entries changed by the last query.
+     */
+    private void reset() {
+        for (int i = 0; i < this.touchedCount; i++) {
+            int v = this.touched[i];
+            this.forwardDistance[v] = Dijkstra.INFINITY;
+            this.backwardDistance[v] = Dijkstra.INFINITY;
+            this.forwardPredecessor[v] = -1;
+            this.backwardSuccessor[v] = -1;
+            this.forwardSettled[v] = false;
+            this.backwardSettled[v] = false;
+            this.onRoute[v] = false;
+        }
+        this.touchedCount = 0;
+        this.forwardHeap.clear();
+        this.backwardHeap.clear();
+        this.visited = 0;
+    }
+}
@@ -0,0 +1,106 @@
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**A union-find which any no. of threads may use at once without locks,
+ * for building the skeleton in parallel.
+ *
+ * Each node holds its parent, or itself if it is a root, in an
+ * AtomicIntegerArray. A find halves the path as it goes with
+ * compare-and-set, which may fail harmlessly if another thread got there
+ * first. A union links one root under the other with compare-and-set,
+ * succeeding only if it is still a root, and starts again otherwise.
+ * Roots are always linked under the root of higher priority, a fixed
+ * scrambling of the index, so no cycle can form and the trees stay
+ * shallow without keeping their sizes.
+ *
+ * @author smsukardi
+ */
+public class ConcurrentUnionFind {
+
+    /** The parent of each node; a root is its own parent. */
+    private AtomicIntegerArray parent;
+
+    /**Constructor. Every node starts in a tree of its own.
+     * @param size the no. of nodes
+     */
+    public ConcurrentUnionFind(int size) {
+        this.parent = new AtomicIntegerArray(size);
+        for (int i = 0; i < size; i++) {
+            this.parent.set(i, i);
+        }
+    }
+
+    /**Merges two trees if they are different.
+     *
+     * @param a the first node to be united
+     * @param b the second node to be united
+     * @return whether they were united by this call
+     */
+    public boolean union(int a, int b) {
+        while (true) {
+            int root1 = this.find(a);
+            int root2 = this.find(b);
+            if (root1 == root2) {
+                return false;
+            }
+            //links the root of lower priority under the other
+            if (priority(root1) > priority(root2)) {
+                int swap = root1;
+                root1 = root2;
+                root2 = swap;
+            }
+            if (this.parent.compareAndSet(root1, root1, root2)) {
+                return true;
+            }
+        }
+    }
+
+    /**Returns the root of curr's tree.
+     *
+     * @param curr the index of the node to find the root of
+     * @return the root of the tree, as of some moment during the call
+     */
+    public int find(int curr) {
+        while (true) {
+            int up = this.parent.get(curr);
+            if (up == curr) {
+                return curr;
+            }
+            //points curr at its grandparent, halving the path
+            int upper = this.parent.get(up);
+            if (upper != up) {
+                this.parent.compareAndSet(curr, up, upper);
+            }
+            curr = upper;
+        }
+    }
+
+    /**Determines whether two nodes are part of the same tree.
+     *
+     * @param index1 the first node
+     * @param index2 the second node
+     * @return true if they are in the same tree, false if not
+     */
+    public boolean find(int index1, int index2) {
+        while (true) {
+            int root1 = this.find(index1);
+            int root2 = this.find(index2);
+            if (root1 == root2) {
+                return true;
+            }
+            //root1 may have been linked under root2 since it was found
+            if (this.parent.get(root1) == root1) {
+                return false;
+            }
+        }
+    }
+
+    /**Gets the priority of a node: its index scrambled by an odd
+     * multiplier, which gives every node a different one.
+     *
+     * @param node the node
+     * @return its priority
+     */
+    private static int priority(int node) {
+        return node * 0x9E3779B9;
+    }
+}
@@ -0,0 +1,938 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Scanner;
+
+/**A contraction hierarchy over a graph of flights, for answering single
+ * route queries by mileage much faster than a search of the whole graph.
+ *
+ * Building it takes the airports out of the graph one at a time, least
+ * important first. When an airport is taken out, a shortcut flight is
+ * added between each pair of its remaining neighbors whose shortest path
+ * went through it, unless a witness search finds another path as short.
+ * An airport's importance is the no. of shortcuts taking it out would add
+ * less the no. of flights it has, plus the no. of its neighbors already
+ * taken out, so that the airports are taken out evenly over the network.
+ * The hubs end up taken out last, at the top of the hierarchy.
+ *
+ * A query searches upwards only, by Dijkstra's algorithm, from the source
+ * over flights to more important airports and from the destination over
+ * flights from more important airports. The two searches meet at the most
+ * important airport on the route, and each settles only a small part of
+ * the graph. Every shortcut records the airport it passes through, so the
+ * route is unpacked into the original flights.
+ *
+ * The mileage of each route is the same as Dijkstra.dijkstra finds; where
+ * two routes tie the one given may differ. The hierarchy can be saved to
+ * a file and loaded again without rebuilding it. Queries keep their work
+ * arrays in the instance, so it should only be queried by one thread at a
+ * time.
+ *
+ * @author smsukardi
+ */
+public class ContractionHierarchy {
+
+    /** The first int of a saved hierarchy. */
+    public static final int MAGIC = 0x46434831;
+    /** The most airports a witness search settles before giving up, in
+     * which case a shortcut is added that may not be needed. */
+    private static final int WITNESS_LIMIT = 500;
+    /** The most airports a witness search settles when only counting the
+     * shortcuts to work out a priority, which need not be exact. */
+    private static final int ESTIMATE_LIMIT = 50;
+    /** The no. of flights there is room for at first at each airport. */
+    private static final int INITIAL_DEGREE = 4;
+    /** The size of the buffers the file is read and written through. */
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    /** The names of the airports. */
+    private String[] names;
+    /** The position of each airport in the hierarchy; higher is later. */
+    private int[] rank;
+    /** Where the upward flights from each airport start. */
+    private int[] upOffsets;
+    /** The airport each upward flight goes to. */
+    private int[] upTargets;
+    /** The mileage of each upward flight. */
+    private int[] upWeights;
+    /** The airport each upward flight passes through, or -1. */
+    private int[] upMiddles;
+    /** Where the downward flights into each airport start. */
+    private int[] downOffsets;
+    /** The airport each downward flight comes from. */
+    private int[] downSources;
+    /** The mileage of each downward flight. */
+    private int[] downWeights;
+    /** The airport each downward flight passes through, or -1. */
+    private int[] downMiddles;
+
+    /** The best mileage from the source in the current query. */
+    private int[] forwardDistance;
+    /** The best mileage to the destination in the current query. */
+    private int[] backwardDistance;
+    /** The flight each airport was reached by from the source. */
+    private int[] forwardEdge;
+    /** The flight each airport was reached by from the destination. */
+    private int[] backwardEdge;
+    /** The flights from the source up to the meeting airport, in reverse.
+     */
+    private int[] chain;
+    /** The airports whose entries were changed by the current query. */
+    private int[] touched;
+    /** The no. of airports in touched. */
+    private int touchedCount;
+    /** The upward search from the source. */
+    private IndexedHeap forwardHeap;
+    /** The upward search from the destination. */
+    private IndexedHeap backwardHeap;
+    /** The no. of airports settled by the last query. */
+    private int visited;
+    /** The mileage of the last route found, or INFINITY. */
+    private int distance;
+
+    /**Constructor, from the parts of a built or loaded hierarchy.
+     * @param names the names of the airports
+     * @param rank the position of each airport in the hierarchy
+     * @param up the upward flights, as offsets, targets, weights, middles
+     * @param down the downward flights, as offsets, sources, weights,
+     * middles
+     */
+    private ContractionHierarchy(String[] names, int[] rank, int[][] up,
+            int[][] down) {
+        this.names = names;
+        this.rank = rank;
+        this.upOffsets = up[0];
+        this.upTargets = up[1];
+        this.upWeights = up[2];
+        this.upMiddles = up[3];
+        this.downOffsets = down[0];
+        this.downSources = down[1];
+        this.downWeights = down[2];
+        this.downMiddles = down[3];
+        int n = names.length;
+        this.forwardDistance = new int[n];
+        this.backwardDistance = new int[n];
+        this.forwardEdge = new int[n];
+        this.backwardEdge = new int[n];
+        this.chain = new int[n];
+        this.touched = new int[n];
+        this.forwardHeap = new IndexedHeap(n);
+        this.backwardHeap = new IndexedHeap(n);
+        Arrays.fill(this.forwardDistance, Dijkstra.INFINITY);
+        Arrays.fill(this.backwardDistance, Dijkstra.INFINITY);
+    }
+
+    /**Main method. Builds a hierarchy and saves it, or loads one and
+     * answers queries read from the console, one per line in the form
+     * "BWI PHL", until a blank line.
+     *
+     * @param args the .txt file containing flight information and the file
+     * to save the hierarchy to; or just the saved hierarchy
+     * @throws IOException if a file cannot be read or written
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length == 2) {
+            long start = System.nanoTime();
+            ContractionHierarchy hierarchy = build(
+                    RouteGenerator.readGraph(args[0], true));
+            hierarchy.save(args[1]);
+            System.out.println("Built in "
+                    + (System.nanoTime() - start) / 1000000 + " ms with "
+                    + hierarchy.shortcutCount() + " shortcuts.");
+            return;
+        }
+        if (args.length != 1) {
+            System.out.println("Please enter a .txt file containing flight "
+                    + "information and a file to save the hierarchy to, or "
+                    + "a saved hierarchy, as command-line input.");
+            return;
+        }
+        ContractionHierarchy hierarchy = load(args[0]);
+        HashMap<String, Integer> airports = new HashMap<String, Integer>();
+        for (int i = 0; i < hierarchy.names.length; i++) {
+            airports.put(hierarchy.names[i], i);
+        }
+        Scanner input = new Scanner(System.in);
+        while (input.hasNextLine()) {
+            String[] query = input.nextLine().trim().split("\\s+");
+            if (query.length < 2) {
+                break;
+            }
+            Integer from = airports.get(query[0]);
+            Integer to = airports.get(query[1]);
+            if (from == null || to == null) {
+                System.out.println("Unknown airport.");
+                continue;
+            }
+            long start = System.nanoTime();
+            int[] path = hierarchy.mileagePath(from, to);
+            long elapsed = System.nanoTime() - start;
+            StringBuilder route = new StringBuilder();
+            for (int j = 0; j < path.length; j++) {
+                if (j > 0) {
+                    route.append("->");
+                }
+                route.append(hierarchy.names[path[j]]);
+            }
+            System.out.println(route + " " + hierarchy.getDistance() + " ("
+                    + elapsed / 1000 + " us)");
+        }
+        input.close();
+    }
+
+    /**Builds a contraction hierarchy.
+     * @param yourGraph the graph of flights
+     * @return the hierarchy
+     */
+    public static ContractionHierarchy build(Graph yourGraph) {
+        return new Builder(GraphCSR.fromGraph(yourGraph)).build();
+    }
+
+    /** Gets the no. of airports.
+     * @return the no. of airports
+     */
+    public int nodeCount() {
+        return this.names.length;
+    }
+
+    /** Gets the name of an airport.
+     * @param v the airport
+     * @return its name
+     */
+    public String getValue(int v) {
+        return this.names[v];
+    }
+
+    /** Gets the no. of shortcut flights added.
+     * @return the no. of shortcuts
+     */
+    public int shortcutCount() {
+        int count = 0;
+        for (int middle : this.upMiddles) {
+            if (middle >= 0) {
+                count++;
+            }
+        }
+        for (int middle : this.downMiddles) {
+            if (middle >= 0) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /** Gets the no. of airports settled by the last query.
+     * @return the no. of airports visited
+     */
+    public int getVisited() {
+        return this.visited;
+    }
+
+    /** Gets the mileage of the last route found.
+     * @return the mileage, or INFINITY if there was no route
+     */
+    public int getDistance() {
+        return this.distance;
+    }
+
+    /**Finds the shortest route between two airports by mileage.
+     * @param sourceNode the source node
+     * @param dest the destination node
+     * @return the nodes on the route, starting with the source; just the
+     * source if dest cannot be reached
+     */
+    public int[] mileagePath(int sourceNode, int dest) {
+        this.reset();
+        this.touch(sourceNode);
+        this.forwardDistance[sourceNode] = 0;
+        this.forwardEdge[sourceNode] = -1;
+        this.touch(dest);
+        this.backwardDistance[dest] = 0;
+        this.backwardEdge[dest] = -1;
+        this.forwardHeap.insertOrDecrease(sourceNode, 0);
+        this.backwardHeap.insertOrDecrease(dest, 0);
+        int best = Dijkstra.INFINITY;
+        int meet = -1;
+
+        //each side stops once it can only find longer paths
+        while (true) {
+            boolean forward = !this.forwardHeap.isEmpty()
+                    && this.forwardHeap.minKey() < best;
+            boolean backward = !this.backwardHeap.isEmpty()
+                    && this.backwardHeap.minKey() < best;
+            if (!forward && !backward) {
+                break;
+            }
+            if (forward && backward) {
+                forward = this.forwardHeap.minKey()
+                        <= this.backwardHeap.minKey();
+            }
+            int u;
+            if (forward) {
+                u = this.forwardHeap.pollMin();
+                this.relax(u, this.upOffsets, this.upTargets,
+                        this.upWeights, this.forwardDistance,
+                        this.forwardEdge, this.forwardHeap);
+            } else {
+                u = this.backwardHeap.pollMin();
+                this.relax(u, this.downOffsets, this.downSources,
+                        this.downWeights, this.backwardDistance,
+                        this.backwardEdge, this.backwardHeap);
+            }
+            this.visited++;
+            long through = (long) this.forwardDistance[u]
+                    + this.backwardDistance[u];
+            if (through < best) {
+                best = (int) through;
+                meet = u;
+            }
+        }
+        this.distance = best;
+        if (meet < 0) {
+            return new int[] {sourceNode};
+        }
+
+        //unpacks the flights from the source up to the meeting airport,
+        //then down to the destination
+        IntList path = new IntList();
+        path.add(sourceNode);
+        int[] chain = this.chain;
+        int length = 0;
+        for (int v = meet; this.forwardEdge[v] >= 0;
+                v = this.upSource(this.forwardEdge[v])) {
+            chain[length++] = this.forwardEdge[v];
+        }
+        for (int i = length - 1; i >= 0; i--) {
+            int e = chain[i];
+            this.unpack(this.upSource(e), this.upTargets[e],
+                    this.upMiddles[e], path);
+        }
+        for (int v = meet; this.backwardEdge[v] >= 0;) {
+            int e = this.backwardEdge[v];
+            int next = this.downTarget(e);
+            this.unpack(v, next, this.downMiddles[e], path);
+            v = next;
+        }
+        return path.toArray();
+    }
+
+    /**Relaxes the flights of a settled airport in one of the searches.
+     * @param u the airport
+     * @param offsets where each airport's flights start
+     * @param ends the airport at the other end of each flight
+     * @param weights the mileage of each flight
+     * @param distances the search's distances
+     * @param edges the flight each airport was reached by
+     * @param heap the search's heap
+     */
+    private void relax(int u, int[] offsets, int[] ends, int[] weights,
+            int[] distances, int[] edges, IndexedHeap heap) {
+        for (int e = offsets[u]; e < offsets[u + 1]; e++) {
+            int v = ends[e];
+            int through = distances[u] + weights[e];
+            if (through < distances[v]) {
+                this.touch(v);
+                distances[v] = through;
+                edges[v] = e;
+                heap.insertOrDecrease(v, through);
+            }
+        }
+    }
+
+    /**Finds the airport an upward flight leaves from.
+     * @param e the flight
+     * @return the airport whose row holds it
+     */
+    private int upSource(int e) {
+        return rowOf(this.upOffsets, e);
+    }
+
+    /**Finds the airport a downward flight goes into.
+     * @param e the flight
+     * @return the airport whose row holds it
+     */
+    private int downTarget(int e) {
+        return rowOf(this.downOffsets, e);
+    }
+
+    /**Finds the row holding an entry of a CSR array.
+     * @param offsets where each row starts
+     * @param e the entry
+     * @return the row
+     */
+    private static int rowOf(int[] offsets, int e) {
+        int low = 0;
+        int high = offsets.length - 2;
+        while (low < high) {
+            int mid = (low + high + 1) >>> 1;
+            if (offsets[mid] <= e) {
+                low = mid;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return low;
+    }
+
+    /**Appends the original flights of a flight (after its first airport)
+     * to a path, unpacking shortcuts through the airports they skip.
+     * @param from the airport the flight leaves
+     * @param to the airport it arrives at
+     * @param middle the airport a shortcut passes through, or -1
+     * @param path the path so far, ending at from
+     */
+    private void unpack(int from, int to, int middle, IntList path) {
+        if (middle < 0) {
+            path.add(to);
+            return;
+        }
+        //the middle airport was taken out before both ends, so the two
+        //halves go up from it to each end
+        this.unpack(from, middle, this.middleOf(middle, from, false), path);
+        this.unpack(middle, to, this.middleOf(middle, to, true), path);
+    }
+
+    /**Finds the airport a flight between a lower airport and a higher one
+     * passes through.
+     * @param lower the airport taken out first
+     * @param higher the other airport
+     * @param up true for the flight from lower to higher, false for the
+     * flight from higher to lower
+     * @return the middle airport, or -1 for an original flight
+     */
+    private int middleOf(int lower, int higher, boolean up) {
+        if (up) {
+            for (int e = this.upOffsets[lower];
+                    e < this.upOffsets[lower + 1]; e++) {
+                if (this.upTargets[e] == higher) {
+                    return this.upMiddles[e];
+                }
+            }
+        } else {
+            for (int e = this.downOffsets[lower];
+                    e < this.downOffsets[lower + 1]; e++) {
+                if (this.downSources[e] == higher) {
+                    return this.downMiddles[e];
+                }
+            }
+        }
+        throw new IllegalStateException("Missing flight in hierarchy.");
+    }
+
+    /**Records that an airport's entries are changed by this query.
+     * @param v the airport
+     */
+    private void touch(int v) {
+        if (this.forwardDistance[v] == Dijkstra.INFINITY
+                && this.backwardDistance[v] == Dijkstra.INFINITY) {
+            this.touched[this.touchedCount++] = v;
+        }
+    }
+
+    /**Resets the entries changed by the last query.
+     */
+    private void reset() {
+        for (int i = 0; i < this.touchedCount; i++) {
+            int v = this.touched[i];
+            this.forwardDistance[v] = Dijkstra.INFINITY;
+            this.backwardDistance[v] = Dijkstra.INFINITY;
+        }
+        this.touchedCount = 0;
+        this.forwardHeap.clear();
+        this.backwardHeap.clear();
+        this.visited = 0;
+    }
+
+    /**Saves the hierarchy to a file.
+     * @param fileName the file to write
+     * @throws IOException if the file cannot be written
+     */
+    public void save(String fileName) throws IOException {
+        DataOutputStream output = new DataOutputStream(
+                new BufferedOutputStream(new FileOutputStream(fileName),
+                        BUFFER_SIZE));
+        try {
+            output.writeInt(MAGIC);
+            output.writeInt(this.names.length);
+            for (String name : this.names) {
+                output.writeUTF(name);
+            }
+            writeInts(output, this.rank);
+            writeInts(output, this.upOffsets);
+            writeInts(output, this.upTargets);
+            writeInts(output, this.upWeights);
+            writeInts(output, this.upMiddles);
+            writeInts(output, this.downOffsets);
+            writeInts(output, this.downSources);
+            writeInts(output, this.downWeights);
+            writeInts(output, this.downMiddles);
+        } finally {
+            output.close();
+        }
+    }
+
+    /**Loads a hierarchy saved by save().
+     * @param fileName the file to read
+     * @return the hierarchy
+     * @throws IOException if the file cannot be read or is not a hierarchy
+     */
+    public static ContractionHierarchy load(String fileName)
+            throws IOException {
+        DataInputStream input = new DataInputStream(new BufferedInputStream(
+                new FileInputStream(fileName), BUFFER_SIZE));
+        try {
+            if (input.readInt() != MAGIC) {
+                throw new IOException(fileName
+                        + " is not a contraction hierarchy.");
+            }
+            String[] names = new String[input.readInt()];
+            for (int i = 0; i < names.length; i++) {
+                names[i] = input.readUTF();
+            }
+            int[] rank = readInts(input);
+            int[][] up = new int[4][];
+            int[][] down = new int[4][];
+            for (int i = 0; i < up.length; i++) {
+                up[i] = readInts(input);
+            }
+            for (int i = 0; i < down.length; i++) {
+                down[i] = readInts(input);
+            }
+            return new ContractionHierarchy(names, rank, up, down);
+        } finally {
+            input.close();
+        }
+    }
+
+    /**Writes an array of ints, preceded by its length.
+     * @param output the file
+     * @param values the ints
+     * @throws IOException if the file cannot be written
+     */
+    private static void writeInts(DataOutputStream output, int[] values)
+            throws IOException {
+        output.writeInt(values.length);
+        for (int value : values) {
+            output.writeInt(value);
+        }
+    }
+
+    /**Reads an array of ints written by writeInts.
+     * @param input the file
+     * @return the ints
+     * @throws IOException if the file cannot be read
+     */
+    private static int[] readInts(DataInputStream input) throws IOException {
+        int[] values = new int[input.readInt()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = input.readInt();
+        }
+        return values;
+    }
+
+    /**A growing list of ints.
+     */
+    private static class IntList {
+
+        /** The ints. */
+        private int[] values = new int[INITIAL_DEGREE];
+        /** The no. of ints. */
+        private int size;
+
+        /**Adds an int to the end.
+         * @param value the int
+         */
+        void add(int value) {
+            if (this.size == this.values.length) {
+                this.values = Arrays.copyOf(this.values, 2 * this.size);
+            }
+            this.values[this.size++] = value;
+        }
+
+        /**Returns the ints.
+         * @return a copy of the ints
+         */
+        int[] toArray() {
+            return Arrays.copyOf(this.values, this.size);
+        }
+    }
+
+    /**Takes the airports out of a graph one at a time to build a
+     * hierarchy. The flights of the remaining graph, with the shortcuts
+     * added so far, are kept in growing arrays for each airport, both as
+     * flights out and flights in.
+     */
+    private static class Builder {
+
+        /** The original graph. */
+        private GraphCSR graph;
+        /** Stores the amount of airports. */
+        private int amtOfAirports;
+        /** The airports each airport has flights to. */
+        private int[][] outTargets;
+        /** The mileage of each flight out. */
+        private int[][] outWeights;
+        /** The airport each flight out passes through, or -1. */
+        private int[][] outMiddles;
+        /** The no. of flights out of each airport. */
+        private int[] outSize;
+        /** The airports each airport has flights from. */
+        private int[][] inSources;
+        /** The mileage of each flight in. */
+        private int[][] inWeights;
+        /** The airport each flight in passes through, or -1. */
+        private int[][] inMiddles;
+        /** The no. of flights into each airport. */
+        private int[] inSize;
+        /** Whether each airport has been taken out. */
+        private boolean[] contracted;
+        /** The no. of neighbors of each airport already taken out. */
+        private int[] contractedNeighbors;
+
+        /** The distances found by the witness search. */
+        private int[] witnessDistance;
+        /** The airports reached by the witness search. */
+        private int[] witnessTouched;
+        /** The heap of the witness search. */
+        private IndexedHeap witnessHeap;
+
+        /**Constructor.
+         * @param graph the graph of flights
+         */
+        Builder(GraphCSR graph) {
+            this.graph = graph;
+            this.amtOfAirports = graph.nodeCount();
+            int n = this.amtOfAirports;
+            this.outTargets = new int[n][];
+            this.outWeights = new int[n][];
+            this.outMiddles = new int[n][];
+            this.outSize = new int[n];
+            this.inSources = new int[n][];
+            this.inWeights = new int[n][];
+            this.inMiddles = new int[n][];
+            this.inSize = new int[n];
+            for (int v = 0; v < n; v++) {
+                this.outTargets[v] = new int[INITIAL_DEGREE];
+                this.outWeights[v] = new int[INITIAL_DEGREE];
+                this.outMiddles[v] = new int[INITIAL_DEGREE];
+                this.inSources[v] = new int[INITIAL_DEGREE];
+                this.inWeights[v] = new int[INITIAL_DEGREE];
+                this.inMiddles[v] = new int[INITIAL_DEGREE];
+            }
+            for (int u = 0; u < n; u++) {
+                for (int e = graph.firstEdge(u); e < graph.endEdge(u); e++) {
+                    int v = graph.edgeTarget(e);
+                    if (v != u && graph.edgeWeight(e) > 0) {
+                        this.addFlight(u, v, graph.edgeWeight(e), -1);
+                    }
+                }
+            }
+            this.contracted = new boolean[n];
+            this.contractedNeighbors = new int[n];
+            this.witnessDistance = new int[n];
+            this.witnessTouched = new int[n];
+            this.witnessHeap = new IndexedHeap(n);
+            Arrays.fill(this.witnessDistance, Dijkstra.INFINITY);
+        }
+
+        /**Takes every airport out, least important first, and collects
+         * the flights of the hierarchy.
+         * @return the hierarchy
+         */
+        ContractionHierarchy build() {
+            int n = this.amtOfAirports;
+            //the heap keys must not be negative
+            int shift = 2 * n + 1;
+            IndexedHeap order = new IndexedHeap(n);
+            for (int v = 0; v < n; v++) {
+                order.insertOrDecrease(v, shift + this.priority(v));
+            }
+            int[] rank = new int[n];
+            int[] upCount = new int[n + 1];
+            int[] downCount = new int[n + 1];
+            int[][] upFlights = new int[n][];
+            int[][] downFlights = new int[n][];
+            int next = 0;
+            while (!order.isEmpty()) {
+                int v = order.pollMin();
+                //the priority may have grown since it was last worked out
+                int priority = shift + this.priority(v);
+                if (!order.isEmpty() && priority > order.minKey()) {
+                    order.insertOrDecrease(v, priority);
+                    continue;
+                }
+                rank[v] = next++;
+                upFlights[v] = this.liveFlights(this.outTargets[v],
+                        this.outWeights[v], this.outMiddles[v],
+                        this.outSize[v]);
+                downFlights[v] = this.liveFlights(this.inSources[v],
+                        this.inWeights[v], this.inMiddles[v],
+                        this.inSize[v]);
+                upCount[v + 1] = upFlights[v].length / 3;
+                downCount[v + 1] = downFlights[v].length / 3;
+                this.contract(v, false);
+                this.contracted[v] = true;
+                this.detach(v);
+            }
+            return new ContractionHierarchy(this.names(), rank,
+                    toRows(upCount, upFlights), toRows(downCount,
+                            downFlights));
+        }
+
+        /**Gets the names of the airports.
+         * @return the names, in index order
+         */
+        private String[] names() {
+            String[] names = new String[this.amtOfAirports];
+            for (int v = 0; v < names.length; v++) {
+                names[v] = this.graph.getValue(v);
+            }
+            return names;
+        }
+
+        /**Lays out each airport's flights in CSR arrays.
+         * @param count the no. of flights of each airport, from index 1
+         * @param flights each airport's flights as end, weight, middle
+         * @return the offsets, ends, weights and middles
+         */
+        private static int[][] toRows(int[] count, int[][] flights) {
+            int n = flights.length;
+            for (int v = 0; v < n; v++) {
+                count[v + 1] += count[v];
+            }
+            int total = count[n];
+            int[] ends = new int[total];
+            int[] weights = new int[total];
+            int[] middles = new int[total];
+            for (int v = 0; v < n; v++) {
+                for (int i = 0; i < flights[v].length / 3; i++) {
+                    ends[count[v] + i] = flights[v][3 * i];
+                    weights[count[v] + i] = flights[v][3 * i + 1];
+                    middles[count[v] + i] = flights[v][3 * i + 2];
+                }
+            }
+            return new int[][] {count, ends, weights, middles};
+        }
+
+        /**Collects the flights to or from airports still in the graph.
+         * @param ends the airport at the other end of each flight
+         * @param weights the mileage of each flight
+         * @param middles the airport each flight passes through
+         * @param size the no. of flights
+         * @return the live flights as end, weight, middle in turn
+         */
+        private int[] liveFlights(int[] ends, int[] weights, int[] middles,
+                int size) {
+            int[] live = new int[3 * size];
+            int count = 0;
+            for (int i = 0; i < size; i++) {
+                if (!this.contracted[ends[i]]) {
+                    live[count++] = ends[i];
+                    live[count++] = weights[i];
+                    live[count++] = middles[i];
+                }
+            }
+            return Arrays.copyOf(live, count);
+        }
+
+        /**Takes an airport out of its neighbors' flights, so that later
+         * searches and shortcuts do not scan past it.
+         * @param v the airport taken out
+         */
+        private void detach(int v) {
+            for (int i = 0; i < this.outSize[v]; i++) {
+                int w = this.outTargets[v][i];
+                if (this.contracted[w]) {
+                    continue;
+                }
+                this.contractedNeighbors[w]++;
+                for (int j = 0; j < this.inSize[w]; j++) {
+                    if (this.inSources[w][j] == v) {
+                        int last = --this.inSize[w];
+                        this.inSources[w][j] = this.inSources[w][last];
+                        this.inWeights[w][j] = this.inWeights[w][last];
+                        this.inMiddles[w][j] = this.inMiddles[w][last];
+                        break;
+                    }
+                }
+            }
+            for (int i = 0; i < this.inSize[v]; i++) {
+                int u = this.inSources[v][i];
+                if (this.contracted[u]) {
+                    continue;
+                }
+                this.contractedNeighbors[u]++;
+                for (int j = 0; j < this.outSize[u]; j++) {
+                    if (this.outTargets[u][j] == v) {
+                        int last = --this.outSize[u];
+                        this.outTargets[u][j] = this.outTargets[u][last];
+                        this.outWeights[u][j] = this.outWeights[u][last];
+                        this.outMiddles[u][j] = this.outMiddles[u][last];
+                        break;
+                    }
+                }
+            }
+        }
+
+        /**Works out how important an airport is: the shortcuts taking it
+         * out would add, less its flights, plus its neighbors taken out.
+         * @param v the airport
+         * @return the priority; the lowest is taken out first
+         */
+        private int priority(int v) {
+            int flights = 0;
+            for (int i = 0; i < this.outSize[v]; i++) {
+                if (!this.contracted[this.outTargets[v][i]]) {
+                    flights++;
+                }
+            }
+            for (int i = 0; i < this.inSize[v]; i++) {
+                if (!this.contracted[this.inSources[v][i]]) {
+                    flights++;
+                }
+            }
+            return this.contract(v, true) - flights
+                    + this.contractedNeighbors[v];
+        }
+
+        /**Adds the shortcuts needed to take an airport out: one from each
+         * airport with a flight in to each airport with a flight out,
+         * unless a path avoiding the airport is as short.
+         * @param v the airport
+         * @param simulate true to only count the shortcuts
+         * @return the no. of shortcuts needed
+         */
+        private int contract(int v, boolean simulate) {
+            int maxOut = 0;
+            for (int j = 0; j < this.outSize[v]; j++) {
+                if (!this.contracted[this.outTargets[v][j]]) {
+                    maxOut = Math.max(maxOut, this.outWeights[v][j]);
+                }
+            }
+            int shortcuts = 0;
+            this.contracted[v] = true;
+            for (int i = 0; i < this.inSize[v]; i++) {
+                int u = this.inSources[v][i];
+                if (this.contracted[u]) {
+                    continue;
+                }
+                int toV = this.inWeights[v][i];
+                int touchedCount = this.witnessSearch(u, toV + maxOut,
+                        simulate ? ESTIMATE_LIMIT : WITNESS_LIMIT);
+                for (int j = 0; j < this.outSize[v]; j++) {
+                    int w = this.outTargets[v][j];
+                    if (w == u || this.contracted[w]) {
+                        continue;
+                    }
+                    int through = toV + this.outWeights[v][j];
+                    if (this.witnessDistance[w] > through) {
+                        shortcuts++;
+                        if (!simulate) {
+                            this.addFlight(u, w, through, v);
+                        }
+                    }
+                }
+                for (int k = 0; k < touchedCount; k++) {
+                    this.witnessDistance[this.witnessTouched[k]] =
+                            Dijkstra.INFINITY;
+                }
+            }
+            this.contracted[v] = false;
+            return shortcuts;
+        }
+
+        /**Finds the shortest paths from an airport through the airports
+         * still in the graph, up to a mileage or a no. of airports.
+         * @param u the airport to search from
+         * @param maxDistance the mileage beyond which paths are not needed
+         * @param limit the most airports to settle
+         * @return the no. of airports in witnessTouched
+         */
+        private int witnessSearch(int u, int maxDistance, int limit) {
+            int touchedCount = 0;
+            this.witnessHeap.clear();
+            this.witnessDistance[u] = 0;
+            this.witnessTouched[touchedCount++] = u;
+            this.witnessHeap.insertOrDecrease(u, 0);
+            int settled = 0;
+            while (!this.witnessHeap.isEmpty()
+                    && this.witnessHeap.minKey() <= maxDistance
+                    && settled < limit) {
+                int x = this.witnessHeap.pollMin();
+                settled++;
+                for (int i = 0; i < this.outSize[x]; i++) {
+                    int y = this.outTargets[x][i];
+                    if (this.contracted[y]) {
+                        continue;
+                    }
+                    int through = this.witnessDistance[x]
+                            + this.outWeights[x][i];
+                    if (through < this.witnessDistance[y]) {
+                        if (this.witnessDistance[y] == Dijkstra.INFINITY) {
+                            this.witnessTouched[touchedCount++] = y;
+                        }
+                        this.witnessDistance[y] = through;
+                        this.witnessHeap.insertOrDecrease(y, through);
+                    }
+                }
+            }
+            return touchedCount;
+        }
+
+        /**Adds a flight, or shortens it if it is already there.
+         * @param u the airport it leaves
+         * @param w the airport it arrives at
+         * @param weight its mileage
+         * @param middle the airport a shortcut passes through, or -1
+         */
+        private void addFlight(int u, int w, int weight, int middle) {
+            for (int i = 0; i < this.outSize[u]; i++) {
+                if (this.outTargets[u][i] == w) {
+                    if (weight < this.outWeights[u][i]) {
+                        this.outWeights[u][i] = weight;
+                        this.outMiddles[u][i] = middle;
+                        for (int j = 0; j < this.inSize[w]; j++) {
+                            if (this.inSources[w][j] == u) {
+                                this.inWeights[w][j] = weight;
+                                this.inMiddles[w][j] = middle;
+                            }
+                        }
+                    }
+                    return;
+                }
+            }
+            int size = this.outSize[u];
+            if (size == this.outTargets[u].length) {
+                this.outTargets[u] = Arrays.copyOf(this.outTargets[u],
+                        2 * size);
+                this.outWeights[u] = Arrays.copyOf(this.outWeights[u],
+                        2 * size);
+                this.outMiddles[u] = Arrays.copyOf(this.outMiddles[u],
+                        2 * size);
+            }
+            this.outTargets[u][size] = w;
+            this.outWeights[u][size] = weight;
+            this.outMiddles[u][size] = middle;
+            this.outSize[u]++;
+            size = this.inSize[w];
+            if (size == this.inSources[w].length) {
+                this.inSources[w] = Arrays.copyOf(this.inSources[w],
+                        2 * size);
+                this.inWeights[w] = Arrays.copyOf(this.inWeights[w],
+                        2 * size);
+                this.inMiddles[w] = Arrays.copyOf(this.inMiddles[w],
+                        2 * size);
+            }
+            this.inSources[w][size] = u;
+            this.inWeights[w][size] = weight;
+            this.inMiddles[w][size] = middle;
+            this.inSize[w]++;
+        }
+    }
+}
@@ -7,7 +7,7 @@ public class Dijkstra {
     /**Constant for infinity; 
      * The circumference of the earth is 24901 miles so this
      * should be ample buffer. */
-    private static final int INFINITY = 999999999;
+    static final int INFINITY = 999999999;
     
     /** Stores the amount of airports. */
     int amtOfAirports;
@@ -27,25 +27,26 @@ public class Dijkstra {
      * containing the airports passed to go from the source airport to the 
      * destination airport.
      */
-    @SuppressWarnings("unchecked")
     public ArrayList<String>[] dijkstra(Graph yourGraph, 
             int sourceNode, int[] distances) {
+        return this.shortestPathTree(yourGraph, sourceNode, distances)
+                .routes(yourGraph);
+    }
+
+    /**Implementation of Dijkstra's algorithm, recording only the
+     * predecessor of each airport rather than its whole path.
+     * @param yourGraph your graph
+     * @param sourceNode your source node
+     * @param distances an array of distances
+     * @return The shortest path tree from the source airport.
+     */
+    public ShortestPathTree shortestPathTree(Graph yourGraph, 
+            int sourceNode, int[] distances) {
         //Stores whether the minimum path has been found yet
-        ArrayList<String>[] paths = new ArrayList[this.amtOfAirports];
         boolean[] pathFound = new boolean[this.amtOfAirports];
-        
-        //initializes each arraylist in the array of arraylists
-        for (int i = 0; i < paths.length; i++) {
-            paths[i] = new ArrayList<String>();
-        }
-       
-        //Sets distances to "infinity" (a very large number) and paths to false
-        for (int i = 0; i < this.amtOfAirports; i++) {
-            pathFound[i] = false;
-            distances[i] = INFINITY;
-        }
-        //The distance from the source to itself is 0
-        distances[sourceNode] = 0;
+        //Sets distances to "infinity" (a very large number) and the
+        //distance from the source to itself to 0
+        ShortestPathTree tree = new ShortestPathTree(sourceNode, distances);
 
         //Finds the shortest path by applying Dijkstra's algorithm
         for (int count = 0; count < this.amtOfAirports - 1; count++) {
@@ -53,15 +54,11 @@ public class Dijkstra {
             int u = this.minVertex(distances, pathFound);
             pathFound[u] = true;            
             //Adds the path length and the path information
-            for (int v = 0; v < this.amtOfAirports; v++) {
-                this.addPaths(pathFound, yourGraph, distances, paths, u, v);
+            for (int v : yourGraph.neighbors(u)) {
+                this.addPaths(pathFound, yourGraph, distances, tree, u, v);
             }
         }
-        //adds the starting point onto all paths
-        for (int i = 0; i < paths.length; i++) {
-            paths[i].add(0, yourGraph.getValue(sourceNode));
-        }        
-        return paths;
+        return tree;
     }
 
     /**Updates distance if the path has not been found already,
@@ -72,24 +69,18 @@ public class Dijkstra {
      * @param pathFound whether the min path has been found for a node
      * @param yourGraph the adjacency matrix
      * @param distances the distance from one node to another
-     * @param paths an array of arraylists containing airports stopped at
+     * @param tree the shortest path tree being built
      * @param i x-coord
      * @param j y-coord
      */
     private void addPaths(boolean[] pathFound, Graph yourGraph, int[] distances,
-            ArrayList<String>[] paths, int i, int j) {
+            ShortestPathTree tree, int i, int j) {
         //Checks if updating distance criteria is passed
         if (!pathFound[j] && yourGraph.getWeight(i, j) != 0 
                 && distances[i] != INFINITY && distances[i] 
                 + yourGraph.getWeight(i, j) < distances[j]) {
-            //updates distances
-            distances[j] = distances[i] + yourGraph.getWeight(i, j);
-            //updates the path to be returned
-            paths[j].clear();       
-            for (int n = 0; n < paths[i].size(); n++) {
-                paths[j].add(paths[i].get(n));
-            }
-            paths[j].add(yourGraph.getValue(j)); //adds the endpoint to the path
+            //updates distances and the path to be returned
+            tree.setPath(j, i, distances[i] + yourGraph.getWeight(i, j));
         }        
     }
 
@@ -101,28 +92,31 @@ public class Dijkstra {
      * @param distances An array of path lengths.
      * @return An ArrayList containing airports
      */
-    @SuppressWarnings("unchecked")
-    public ArrayList<String>[] modifiedDijkstra(GraphMatrix newGraph, 
-            GraphMatrix yourGraph, int sourceNode, int[] distances) {
+    public ArrayList<String>[] modifiedDijkstra(Graph newGraph, 
+            Graph yourGraph, int sourceNode, int[] distances) {
+        return this.modifiedShortestPathTree(newGraph, yourGraph, sourceNode,
+                distances).routes(yourGraph);
+    }
+
+    /**Modified Dijkstra's algorithm, recording only the predecessor of
+     * each airport rather than its whole path.
+     * @param newGraph The graph containing unweighted nodes.
+     * @param yourGraph The original graph.
+     * @param sourceNode Your source node. 
+     * @param distances An array of path lengths.
+     * @return The shortest path tree (by no. of segments) from the source.
+     */
+    public ShortestPathTree modifiedShortestPathTree(Graph newGraph, 
+            Graph yourGraph, int sourceNode, int[] distances) {
         //Stores whether the minimum path has been found
         boolean[] pathFound = new boolean[this.amtOfAirports];
         int[] ghostDistances = new int[this.amtOfAirports];
-        ArrayList<String>[] paths = new ArrayList[this.amtOfAirports];
-        
-        //initializes each arraylist in the array of arraylists
-        for (int i = 0; i < paths.length; i++) {
-            paths[i] = new ArrayList<String>();
-        }
-        
-        //Sets all distances to "infinity" and all paths to false
+        //Sets all distances to "infinity"; the distance from the source
+        //to itself is 0
+        ShortestPathTree tree = new ShortestPathTree(sourceNode, distances);
         for (int i = 0; i < this.amtOfAirports; i++) {
-            pathFound[i] = false;
-            distances[i] = INFINITY;
             ghostDistances[i] = INFINITY;
         }
-        
-        //Distance from the source to itself is 0
-        distances[sourceNode] = 0;
         ghostDistances[sourceNode] = 0;
 
         //Finds the shortest path by applying Dijkstra's algorithm
@@ -132,20 +126,16 @@ public class Dijkstra {
             pathFound[u] = true;
             
             //Adds the path length and the path information
-            for (int v = 0; v < this.amtOfAirports; v++) {
+            for (int v : newGraph.neighbors(u)) {
                 if (!pathFound[v] && newGraph.getWeight(u, v) != 0
                         && distances[u] != INFINITY && distances[u] 
                         + newGraph.getWeight(u, v) <= distances[v]) {
                     this.modAddPaths(yourGraph, newGraph, distances,
-                            ghostDistances, paths, u, v);
+                            ghostDistances, tree, u, v);
                 }
             }
         }        
-        //adds the starting point onto all paths
-        for (int i = 0; i < paths.length; i++) {
-            paths[i].add(0, newGraph.getValue(sourceNode));
-        }                
-        return paths;
+        return tree;
     }
     
     /**A modified add paths for the modified dijkstra's algorithm.
@@ -155,35 +145,23 @@ public class Dijkstra {
      * @param newGraph the modified adjacency matrix with edge weights 1.
      * @param distances the new distances.
      * @param ghostDistances the original distances, for mileage comparison.
-     * @param paths an array of arraylists containing airports stopped at
+     * @param tree the shortest path tree being built
      * @param i x-coord
      * @param j y-coord
      */
-    private void modAddPaths(GraphMatrix yourGraph, GraphMatrix newGraph,
-            int[] distances, int[] ghostDistances, ArrayList<String>[] paths,
+    private void modAddPaths(Graph yourGraph, Graph newGraph,
+            int[] distances, int[] ghostDistances, ShortestPathTree tree,
             int i, int j) {
         if (distances[i] + newGraph.getWeight(i, j) == distances[j]) {
             //apply tiebreaker
             if (ghostDistances[i] + yourGraph.getWeight(i, j) 
                 <= ghostDistances[j]) {
-                //updates distances
-                distances[j] = distances[i] + newGraph.getWeight(i, j);
-                //updates the path to be returned
-                paths[j].clear();                    
-                for (int n = 0; n < paths[i].size(); n++) {
-                    paths[j].add(paths[i].get(n));
-                }
-                paths[j].add(yourGraph.getValue(j)); //adds endpoint
+                //updates distances and the path to be returned
+                tree.setPath(j, i, distances[i] + newGraph.getWeight(i, j));
             }            
         } else {                    
-            //updates distances
-            distances[j] = distances[i] + newGraph.getWeight(i, j);
-            //updates the path to be returned
-            paths[j].clear();                    
-            for (int n = 0; n < paths[i].size(); n++) {
-                paths[j].add(paths[i].get(n));
-            }
-            paths[j].add(yourGraph.getValue(j)); //adds the endpoint
+            //updates distances and the path to be returned
+            tree.setPath(j, i, distances[i] + newGraph.getWeight(i, j));
         }        
     }
 
@@ -0,0 +1,328 @@
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.HashMap;
+import java.util.Scanner;
+
+/**Keeps the routes from every source up to date as flights are added,
+ * removed or given a new mileage, finding the routes again only from the
+ * sources whose routes may have changed.
+ *
+ * A change to the flight between a and b can only change the routes from
+ * a source s if:
+ * - the flight is now, or was before, on a shortest path by mileage from
+ *   s, that is dist(a) + miles is no more than dist(b) either way round
+ *   (a tie is enough, since the highest-index tie-breaking may then pick
+ *   another path); or
+ * - s has routes by no. of segments, and the flight is added or removed
+ *   between airports whose no. of segments from s differ (by one for a
+ *   removal, since only then could the flight be on a path).
+ * Every other source's routes are left as they are. The routes from an
+ * affected source are all found again, with the same searches (and so
+ * the same tie-breaking) as RouteGenerator, so routes.txt stays exactly
+ * what a full run on the changed network would write.
+ *
+ * When a change affects more than a given fraction of the sources, the
+ * routes are found again from every source instead, on all the threads.
+ * The routes from every source are kept, so memory is O(V^2).
+ *
+ * @author smsukardi
+ */
+public class DynamicRoutes {
+
+    /** The fraction of sources beyond which every source is redone. */
+    public static final double DEFAULT_REBUILD_FRACTION = 0.5;
+
+    /** The graph, changed in place. */
+    private GraphCSR graph;
+    /** The engine used to find the routes again on this thread. */
+    private RouteEngine engine;
+    /** Stores the amount of airports. */
+    private int amtOfAirports;
+    /** The max. no. of segments of a route chosen by mileage. */
+    private int threshold;
+    /** The no. of threads to use for a full rebuild. */
+    private int parallelism;
+    /** The fraction of sources beyond which every source is redone. */
+    private double rebuildFraction;
+    /** The routes from each source. */
+    private SourceRoutes[] routes;
+    /** The index of each airport, by name. */
+    private HashMap<String, Integer> airports;
+    /** The no. of full rebuilds done since construction. */
+    private int rebuilds;
+
+    /**Constructor. Finds the routes from every source.
+     * @param yourGraph the graph of flights, copied once if not a GraphCSR
+     * @param threshold the threshold no. of segments, already clamped by
+     * RouteGenerator.maxSegments
+     * @param parallelism the no. of threads to use for full rebuilds
+     * @param rebuildFraction the fraction of sources a change may affect
+     * before every source is redone
+     */
+    public DynamicRoutes(Graph yourGraph, int threshold, int parallelism,
+            double rebuildFraction) {
+        this.engine = new RouteEngine(yourGraph);
+        this.graph = this.engine.getGraph();
+        this.amtOfAirports = this.graph.nodeCount();
+        this.threshold = threshold;
+        this.parallelism = parallelism;
+        this.rebuildFraction = rebuildFraction;
+        this.routes = new SourceRoutes[this.amtOfAirports];
+        this.airports = new HashMap<String, Integer>();
+        for (int i = 0; i < this.amtOfAirports; i++) {
+            this.airports.put(this.graph.getValue(i), i);
+        }
+        this.rebuild();
+        this.rebuilds = 0;
+    }
+
+    /**Main method. Applies a file of changes, one per line in the form
+     * "BWI PHL 80" (a mileage of 0 removes the flight), reporting how many
+     * sources each one redid, then writes routes.txt for the changed
+     * network. Blank lines are skipped, and a line which cannot be applied
+     * is reported and skipped.
+     *
+     * @param args the .txt file containing flight information, the
+     * threshold, the .txt file of changes, then any of -threads # and
+     * -rebuild # (the fraction of sources for a full rebuild)
+     * @throws IOException if a file cannot be read or written
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length <= 2) {
+            System.out.println("Please enter a .txt file containing "
+                    + "flight information, the max. no. of segments and a "
+                    + ".txt file of changes as command-line input.");
+            return;
+        }
+        int parallelism = 1;
+        double rebuildFraction = DEFAULT_REBUILD_FRACTION;
+        for (int i = 3; i < args.length; i++) {
+            if (args[i].equals("-threads") && i + 1 < args.length) {
+                parallelism = RouteRunner.parallelism(
+                        Integer.parseInt(args[++i]));
+            } else if (args[i].equals("-rebuild") && i + 1 < args.length) {
+                rebuildFraction = Double.parseDouble(args[++i]);
+            }
+        }
+        Graph yourGraph = RouteGenerator.readGraph(args[0], true);
+        int threshold = RouteGenerator.maxSegments(
+                Integer.parseInt(args[1]), yourGraph.nodeCount());
+        DynamicRoutes dynamic = new DynamicRoutes(yourGraph, threshold,
+                parallelism, rebuildFraction);
+
+        Scanner changes = new Scanner(new File(args[2]));
+        int lineNo = 0;
+        while (changes.hasNextLine()) {
+            String line = changes.nextLine().trim();
+            lineNo++;
+            if (line.isEmpty()) {
+                continue;
+            }
+            String[] change = line.split("\\s+");
+            if (change.length != 3) {
+                System.out.println("Skipped line " + lineNo + " \"" + line
+                        + "\": not in the form \"BWI PHL 80\".");
+                continue;
+            }
+            long start = System.nanoTime();
+            int redone;
+            try {
+                redone = dynamic.setFlight(change[0], change[1],
+                        Integer.parseInt(change[2]));
+            } catch (NumberFormatException e) {
+                System.out.println("Skipped line " + lineNo + " \"" + line
+                        + "\": bad mileage " + change[2] + ".");
+                continue;
+            } catch (IllegalArgumentException e) {
+                //an unknown airport or a mileage below 0, neither of which
+                //has changed anything
+                System.out.println("Skipped line " + lineNo + " \"" + line
+                        + "\": " + e.getMessage());
+                continue;
+            }
+            System.out.println(String.join(" ", change) + ": " + redone
+                    + " sources redone in "
+                    + (System.nanoTime() - start) / 1000000 + " ms");
+        }
+        changes.close();
+
+        PrintWriter output = new PrintWriter("routes.txt");
+        dynamic.printRoutes(output);
+        output.close();
+    }
+
+    /** Gets the graph, with every change made so far.
+     * @return the graph
+     */
+    public GraphCSR getGraph() {
+        return this.graph;
+    }
+
+    /** Gets the current routes from a source.
+     * @param sourceNode the source node
+     * @return the routes from the source
+     */
+    public SourceRoutes getRoutes(int sourceNode) {
+        return this.routes[sourceNode];
+    }
+
+    /** Gets the no. of changes which redid every source.
+     * @return the no. of full rebuilds
+     */
+    public int getRebuilds() {
+        return this.rebuilds;
+    }
+
+    /**Adds, removes or changes the mileage of a flight, both ways.
+     * @param from the name of one airport
+     * @param to the name of the other airport
+     * @param miles the new mileage, or 0 to remove the flight
+     * @return the no. of sources whose routes were found again
+     */
+    public int setFlight(String from, String to, int miles) {
+        return this.setFlight(this.indexOf(from), this.indexOf(to), miles);
+    }
+
+    /**Adds, removes or changes the mileage of a flight, both ways, and
+     * updates the routes it may change.
+     * @param a one airport
+     * @param b the other airport
+     * @param miles the new mileage, or 0 to remove the flight
+     * @return the no. of sources whose routes were found again
+     */
+    public int setFlight(int a, int b, int miles) {
+        if (miles < 0) {
+            throw new IllegalArgumentException("Bad flight " + a + " " + b
+                    + " " + miles + ".");
+        }
+        int oldMiles = this.graph.getWeight(a, b);
+        if (oldMiles == miles) {
+            return 0;
+        }
+
+        //finds the sources whose routes may change, before the change
+        boolean[] affected = new boolean[this.amtOfAirports];
+        int count = 0;
+        for (int s = 0; s < this.amtOfAirports; s++) {
+            if (this.isAffected(this.routes[s], a, b, oldMiles, miles)) {
+                affected[s] = true;
+                count++;
+            }
+        }
+
+        if (miles == 0) {
+            this.graph.removeEdge(a, b);
+            this.graph.removeEdge(b, a);
+        } else {
+            this.graph.addEdge(a, b, miles);
+            this.graph.addEdge(b, a, miles);
+        }
+        this.graph.compact();
+
+        if (count > this.rebuildFraction * this.amtOfAirports) {
+            this.rebuild();
+            return this.amtOfAirports;
+        }
+        for (int s = 0; s < this.amtOfAirports; s++) {
+            if (affected[s]) {
+                this.routes[s] = this.engine.routes(s, this.threshold);
+            }
+        }
+        return count;
+    }
+
+    /**Returns whether changing a flight may change the routes from a
+     * source.
+     * @param routes the routes from the source before the change
+     * @param a one airport
+     * @param b the other airport
+     * @param oldMiles the mileage before the change, 0 if there was none
+     * @param miles the mileage after the change, 0 if there is none
+     * @return false if the routes are certain to stay the same
+     */
+    private boolean isAffected(SourceRoutes routes, int a, int b,
+            int oldMiles, int miles) {
+        ShortestPathTree mileage = routes.getMileageTree();
+        if (isOnPath(mileage, a, b, oldMiles)
+                || isOnPath(mileage, a, b, miles)) {
+            return true;
+        }
+        ShortestPathTree segments = routes.getSegmentTree();
+        if (segments == null || (oldMiles != 0 && miles != 0)) {
+            //no segment tree, or the flights themselves are the same
+            return false;
+        }
+        boolean reachedA = isReached(segments, a);
+        boolean reachedB = isReached(segments, b);
+        if (!reachedA || !reachedB) {
+            return reachedA != reachedB && miles != 0;
+        }
+        int apart = Math.abs(segments.getHops(a) - segments.getHops(b));
+        if (miles == 0) {
+            return apart == 1;
+        }
+        return apart >= 1;
+    }
+
+    /**Returns whether a flight could be on a shortest path by mileage,
+     * that is whether it reaches either end no later than its best path.
+     * @param tree the shortest path tree by mileage
+     * @param a one airport
+     * @param b the other airport
+     * @param miles the mileage of the flight, 0 if there is none
+     * @return true if the flight is on or tied with a shortest path
+     */
+    private static boolean isOnPath(ShortestPathTree tree, int a, int b,
+            int miles) {
+        if (miles == 0) {
+            return false;
+        }
+        long toA = tree.getDistance(a);
+        long toB = tree.getDistance(b);
+        return (toA < Dijkstra.INFINITY && toA + miles <= toB)
+                || (toB < Dijkstra.INFINITY && toB + miles <= toA);
+    }
+
+    /**Returns whether a tree reaches a node.
+     * @param tree the tree
+     * @param v the node
+     * @return true if v is the source or has a predecessor
+     */
+    private static boolean isReached(ShortestPathTree tree, int v) {
+        return v == tree.getSource() || tree.getPredecessor(v) >= 0;
+    }
+
+    /**Finds the routes from every source again.
+     */
+    private void rebuild() {
+        final int[] next = new int[1];
+        RouteRunner.run(this.engine, this.threshold, this.parallelism,
+            routes -> routes,
+            routes -> this.routes[next[0]++] = routes);
+        this.rebuilds++;
+    }
+
+    /**Prints the routes from every source as RouteGenerator does.
+     * @param output the file to print to
+     */
+    public void printRoutes(PrintWriter output) {
+        for (SourceRoutes source : this.routes) {
+            output.print(RouteGenerator.formatRoutes(source, this.graph));
+        }
+    }
+
+    /**Gets the index of an airport.
+     * @param name the airport's name
+     * @return the index
+     * @throws IllegalArgumentException if there is no such airport
+     */
+    private int indexOf(String name) {
+        Integer index = this.airports.get(name);
+        if (index == null) {
+            throw new IllegalArgumentException("Unknown airport " + name
+                    + ".");
+        }
+        return index;
+    }
+}
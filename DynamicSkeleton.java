@@ -0,0 +1,575 @@
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Scanner;
+
+/**Keeps the skeleton and the airport frequencies up to date as segment
+ * counts change, instead of reading, sorting and joining every segment
+ * again as SkeletonGenerator does.
+ *
+ * Kruskal's algorithm takes the flights highest frequency first, then
+ * in row-major order, so the skeleton links a pair of airports by the
+ * better of its two flights, and no two pairs are ever equal. There is
+ * then only one maximum spanning forest, and it is kept here as the
+ * counts change:
+ * - a pair which got better and is not in the skeleton replaces the
+ *   worst pair on the path between its ends, if it beats it, or links
+ *   two trees if there is no such path;
+ * - a pair which got worse (or is no longer flown) and is in the
+ *   skeleton is cut, and the best pair across the cut put back in its
+ *   place, which may be the same pair.
+ * Every other change leaves the skeleton as it is. A path is found by a
+ * search of the skeleton, and the pairs across a cut by going through
+ * the flights of the smaller side, found by searching both sides a node
+ * at a time. A change thus costs at most O(V) plus the flights of half
+ * a tree, rather than O(E log E), and skeleton.txt and
+ * airportFrequencies.txt stay exactly what a full run would write.
+ *
+ * @author smsukardi
+ */
+public class DynamicSkeleton {
+
+    /** The no. of places in a new row of a list of neighbors. */
+    private static final int MIN_ROW = 4;
+
+    /** The count of each segment, changed in place. */
+    private SegmentCounter counts;
+    /** Stores the amount of airports. */
+    private int amtOfAirports;
+    /** The airports each airport has a flight to or from. */
+    private int[][] adjacent;
+    /** The no. of airports in each row of adjacent. */
+    private int[] degree;
+    /** The airports each airport is linked to in the skeleton. */
+    private int[][] treeAdjacent;
+    /** The no. of airports in each row of treeAdjacent. */
+    private int[] treeDegree;
+    /** The pairs in the skeleton, the lower index first. */
+    private SegmentCounter treePairs;
+    /** The frequency of each airport, over its flights in the skeleton. */
+    private int[] totals;
+    /** The index of each airport, by name. */
+    private HashMap<String, Integer> airports;
+    /** The search each airport was last reached by. */
+    private int[] mark;
+    /** The no. of the current search. */
+    private int stamp;
+    /** The airport each airport was reached from by the last search. */
+    private int[] parent;
+    /** The airports reached from one end, in the order reached. */
+    private int[] queue;
+    /** The airports reached from the other end, in the order reached. */
+    private int[] otherQueue;
+
+    /**Constructor. Builds the skeleton with Kruskal's algorithm.
+     * @param yourGraph the frequency graph, copied and left unchanged
+     */
+    public DynamicSkeleton(Graph yourGraph) {
+        this.amtOfAirports = yourGraph.nodeCount();
+        this.counts = new SegmentCounter();
+        this.counts.init(this.amtOfAirports);
+        this.treePairs = new SegmentCounter();
+        this.treePairs.init(this.amtOfAirports);
+        this.adjacent = new int[this.amtOfAirports][];
+        this.degree = new int[this.amtOfAirports];
+        this.treeAdjacent = new int[this.amtOfAirports][];
+        this.treeDegree = new int[this.amtOfAirports];
+        this.totals = new int[this.amtOfAirports];
+        this.airports = new HashMap<String, Integer>();
+        this.mark = new int[this.amtOfAirports];
+        this.parent = new int[this.amtOfAirports];
+        this.queue = new int[this.amtOfAirports];
+        this.otherQueue = new int[this.amtOfAirports];
+        for (int i = 0; i < this.amtOfAirports; i++) {
+            this.counts.setValue(i, yourGraph.getValue(i));
+            this.treePairs.setValue(i, yourGraph.getValue(i));
+            this.airports.put(yourGraph.getValue(i), i);
+        }
+
+        //copies the counts, listing each pair once as its ends
+        for (int i = 0; i < this.amtOfAirports; i++) {
+            for (int j : yourGraph.neighbors(i)) {
+                int weight = yourGraph.getWeight(i, j);
+                if (weight > 0) {
+                    if (i != j && this.counts.getWeight(j, i) == 0) {
+                        addNeighbor(this.adjacent, this.degree, i, j);
+                        addNeighbor(this.adjacent, this.degree, j, i);
+                    }
+                    this.counts.addEdge(i, j, weight);
+                }
+            }
+        }
+
+        //links the flights chosen by Kruskal's algorithm
+        long[] segments = this.counts.segments();
+        int[] from = new int[segments.length];
+        int[] to = new int[segments.length];
+        int[] frequency = new int[segments.length];
+        for (int k = 0; k < segments.length; k++) {
+            from[k] = (int) (segments[k] >>> 32);
+            to[k] = (int) segments[k];
+            frequency[k] = this.counts.getWeight(from[k], to[k]);
+        }
+        for (int flight : SkeletonBuilder.kruskal(this.amtOfAirports, from,
+                to, frequency, segments.length)) {
+            this.link(from[flight], to[flight]);
+        }
+    }
+
+    /**Main method. Applies a file of changes to the counts, one per line
+     * in the form "BWI PHL 3" (the amount the count of the segment from
+     * BWI to PHL goes up by, or down by if negative), printing the
+     * skeleton flights each one added or removed, then writes
+     * skeleton.txt and airportFrequencies.txt for the changed counts.
+     * Blank lines are skipped, and a line which cannot be applied is
+     * reported and skipped.
+     *
+     * @param args the frequencies file, as SkeletonGenerator reads it, the
+     * .txt file of changes, then -sparse and -edges as SkeletonGenerator
+     * takes them
+     * @throws IOException if a file cannot be read or written
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length <= 1) {
+            System.out.println("Please enter a frequencies file and a .txt "
+                    + "file of changes as command-line input.");
+            return;
+        }
+        boolean sparse = false;
+        boolean edges = false;
+        for (int i = 2; i < args.length; i++) {
+            if (args[i].equals("-sparse")) {
+                sparse = true;
+            } else if (args[i].equals("-edges")) {
+                edges = true;
+            }
+        }
+        Graph yourGraph = SkeletonGenerator.readFrequencies(args[0], sparse);
+        DynamicSkeleton dynamic = new DynamicSkeleton(yourGraph);
+        if (yourGraph instanceof MappedGraph) {
+            ((MappedGraph) yourGraph).close();
+        }
+
+        Scanner changes = new Scanner(new File(args[1]));
+        int lineNo = 0;
+        while (changes.hasNextLine()) {
+            String line = changes.nextLine().trim();
+            lineNo++;
+            if (line.isEmpty()) {
+                continue;
+            }
+            String[] change = line.split("\\s+");
+            if (change.length != 3) {
+                System.out.println("Skipped line " + lineNo + " \"" + line
+                        + "\": not in the form \"BWI PHL 3\".");
+                continue;
+            }
+            long start = System.nanoTime();
+            ArrayList<Pair> changed;
+            try {
+                changed = dynamic.addFrequency(change[0], change[1],
+                        Integer.parseInt(change[2]));
+            } catch (NumberFormatException e) {
+                System.out.println("Skipped line " + lineNo + " \"" + line
+                        + "\": bad amount " + change[2] + ".");
+                continue;
+            } catch (IllegalArgumentException e) {
+                //an unknown airport or a count below 0, neither of which
+                //has changed anything
+                System.out.println("Skipped line " + lineNo + " \"" + line
+                        + "\": " + e.getMessage());
+                continue;
+            }
+            System.out.println(String.join(" ", change) + ": "
+                    + changed.size() + " skeleton flights changed in "
+                    + (System.nanoTime() - start) / 1000000 + " ms");
+            for (Pair flight : changed) {
+                System.out.println("    " + flight.getStart() + " "
+                        + flight.getDest() + " " + flight.getWeight());
+            }
+        }
+        changes.close();
+
+        Graph skeleton;
+        if (sparse) {
+            skeleton = dynamic.getSkeleton(new GraphCSR());
+        } else {
+            skeleton = dynamic.getSkeleton(new GraphMatrix());
+        }
+        SkeletonGenerator.printSkeleton(skeleton, edges);
+        SkeletonGenerator.printAirportFrequencies(skeleton,
+                dynamic.getFrequencies());
+    }
+
+    /**Changes the count of a segment.
+     * @param from the name of the airport it is flown from
+     * @param to the name of the airport it is flown to
+     * @param amount the amount to add to its count
+     * @return the skeleton flights added or removed, as for
+     * addFrequency(int, int, int)
+     */
+    public ArrayList<Pair> addFrequency(String from, String to, int amount) {
+        return this.addFrequency(this.indexOf(from), this.indexOf(to),
+                amount);
+    }
+
+    /**Changes the count of a segment, and updates the skeleton and the
+     * airport frequencies.
+     * @param from the airport it is flown from
+     * @param to the airport it is flown to
+     * @param amount the amount to add to its count
+     * @return the skeleton flights added or removed, each with the lower
+     * index first and, if added, the frequency of both its segments
+     * together as the weight, or 0 if removed
+     * @throws IllegalArgumentException if the count would go below 0
+     */
+    public ArrayList<Pair> addFrequency(int from, int to, int amount) {
+        int oldCount = this.counts.getWeight(from, to);
+        if (oldCount + amount < 0) {
+            throw new IllegalArgumentException("Bad change " + from + " "
+                    + to + " " + amount + ": the count is " + oldCount + ".");
+        }
+        ArrayList<Pair> changed = new ArrayList<Pair>();
+        if (amount == 0) {
+            return changed;
+        }
+        if (from == to) {
+            //a segment back to the same airport is never in the skeleton
+            this.counts.incrementEdge(from, to, amount);
+            return changed;
+        }
+        int a = Math.min(from, to);
+        int b = Math.max(from, to);
+        int oldWeight = this.weightOf(a, b);
+        int oldBest = this.bestFrom(a, b);
+        int oldFrequency = this.counts.getWeight(oldBest, a + b - oldBest);
+
+        this.counts.incrementEdge(from, to, amount);
+        int weight = this.weightOf(a, b);
+        if (oldWeight == 0) {
+            addNeighbor(this.adjacent, this.degree, a, b);
+            addNeighbor(this.adjacent, this.degree, b, a);
+        } else if (weight == 0) {
+            removeNeighbor(this.adjacent, this.degree, a, b);
+            removeNeighbor(this.adjacent, this.degree, b, a);
+        }
+        boolean inTree = this.treePairs.hasEdge(a, b);
+        if (inTree) {
+            this.totals[a] += weight - oldWeight;
+            this.totals[b] += weight - oldWeight;
+        }
+
+        //the pair only moves in the order if its better flight changed
+        int best = this.bestFrom(a, b);
+        if (weight > 0 && best == oldBest
+                && this.counts.getWeight(best, a + b - best) == oldFrequency) {
+            return changed;
+        }
+        if (amount > 0 && !inTree) {
+            this.improve(a, b, changed);
+        } else if (amount < 0 && inTree) {
+            this.worsen(a, b, changed);
+        }
+        return changed;
+    }
+
+    /**Puts a pair which got better into the skeleton if it now belongs.
+     * @param a the lower end of the pair, not in the skeleton
+     * @param b the higher end of the pair
+     * @param changed the list to add the skeleton flights changed to
+     */
+    private void improve(int a, int b, ArrayList<Pair> changed) {
+        //finds the path from a to b in the skeleton
+        int search = this.nextStamp();
+        this.mark[a] = search;
+        this.queue[0] = a;
+        int head = 0;
+        int tail = 1;
+        while (head < tail && this.mark[b] != search) {
+            int x = this.queue[head++];
+            for (int k = 0; k < this.treeDegree[x]; k++) {
+                int y = this.treeAdjacent[x][k];
+                if (this.mark[y] != search) {
+                    this.mark[y] = search;
+                    this.parent[y] = x;
+                    this.queue[tail++] = y;
+                }
+            }
+        }
+        if (this.mark[b] != search) {
+            this.link(a, b);
+            changed.add(this.flight(a, b, true));
+            return;
+        }
+
+        //finds the worst pair on the path
+        int worstX = this.parent[b];
+        int worstY = b;
+        for (int y = this.parent[b]; y != a; y = this.parent[y]) {
+            if (this.isBetter(worstX, worstY, this.parent[y], y)) {
+                worstX = this.parent[y];
+                worstY = y;
+            }
+        }
+        if (this.isBetter(a, b, worstX, worstY)) {
+            this.cut(worstX, worstY);
+            this.link(a, b);
+            changed.add(this.flight(worstX, worstY, false));
+            changed.add(this.flight(a, b, true));
+        }
+    }
+
+    /**Cuts a pair which got worse from the skeleton, and links the best
+     * pair across the cut in its place.
+     * @param a the lower end of the pair, in the skeleton
+     * @param b the higher end of the pair
+     * @param changed the list to add the skeleton flights changed to
+     */
+    private void worsen(int a, int b, ArrayList<Pair> changed) {
+        this.cut(a, b);
+
+        //finds the smaller side, searching both a node at a time
+        int sideA = this.nextStamp();
+        int sideB = this.nextStamp();
+        this.mark[a] = sideA;
+        this.mark[b] = sideB;
+        this.queue[0] = a;
+        this.otherQueue[0] = b;
+        int headA = 0;
+        int tailA = 1;
+        int headB = 0;
+        int tailB = 1;
+        while (headA < tailA && headB < tailB) {
+            tailA = this.expand(this.queue, headA++, tailA, sideA);
+            tailB = this.expand(this.otherQueue, headB++, tailB, sideB);
+        }
+        int[] side = headA == tailA ? this.queue : this.otherQueue;
+        int size = headA == tailA ? tailA : tailB;
+        int stampSide = headA == tailA ? sideA : sideB;
+
+        //finds the best pair leaving the smaller side
+        int bestX = -1;
+        int bestY = -1;
+        for (int k = 0; k < size; k++) {
+            int x = side[k];
+            for (int n = 0; n < this.degree[x]; n++) {
+                int y = this.adjacent[x][n];
+                if (this.mark[y] != stampSide
+                        && (bestX < 0 || this.isBetter(x, y, bestX, bestY))) {
+                    bestX = x;
+                    bestY = y;
+                }
+            }
+        }
+        if (bestX >= 0) {
+            this.link(bestX, bestY);
+        }
+        if (bestX < 0 || Math.min(bestX, bestY) != a
+                || Math.max(bestX, bestY) != b) {
+            changed.add(this.flight(a, b, false));
+            if (bestX >= 0) {
+                changed.add(this.flight(bestX, bestY, true));
+            }
+        }
+    }
+
+    /**Reaches the skeleton neighbors of the next airport of a search.
+     * @param reached the airports reached so far
+     * @param head the position of the airport to expand
+     * @param tail the no. of airports reached so far
+     * @param search the no. of the search
+     * @return the no. of airports reached now
+     */
+    private int expand(int[] reached, int head, int tail, int search) {
+        int x = reached[head];
+        for (int k = 0; k < this.treeDegree[x]; k++) {
+            int y = this.treeAdjacent[x][k];
+            if (this.mark[y] != search) {
+                this.mark[y] = search;
+                reached[tail++] = y;
+            }
+        }
+        return tail;
+    }
+
+    /**Adds a pair to the skeleton.
+     * @param x one end
+     * @param y the other end
+     */
+    private void link(int x, int y) {
+        addNeighbor(this.treeAdjacent, this.treeDegree, x, y);
+        addNeighbor(this.treeAdjacent, this.treeDegree, y, x);
+        this.treePairs.addEdge(Math.min(x, y), Math.max(x, y), 1);
+        int weight = this.weightOf(x, y);
+        this.totals[x] += weight;
+        this.totals[y] += weight;
+    }
+
+    /**Removes a pair from the skeleton.
+     * @param x one end
+     * @param y the other end
+     */
+    private void cut(int x, int y) {
+        removeNeighbor(this.treeAdjacent, this.treeDegree, x, y);
+        removeNeighbor(this.treeAdjacent, this.treeDegree, y, x);
+        this.treePairs.removeEdge(Math.min(x, y), Math.max(x, y));
+        int weight = this.weightOf(x, y);
+        this.totals[x] -= weight;
+        this.totals[y] -= weight;
+    }
+
+    /**Gets the count of both segments of a pair together.
+     * @param x one end
+     * @param y the other end
+     * @return the sum of the counts
+     */
+    private int weightOf(int x, int y) {
+        return this.counts.getWeight(x, y) + this.counts.getWeight(y, x);
+    }
+
+    /**Gets the airport the better segment of a pair is flown from: the
+     * one with the higher count, or from the lower index if they tie.
+     * @param x one end
+     * @param y the other end
+     * @return x or y
+     */
+    private int bestFrom(int x, int y) {
+        int low = Math.min(x, y);
+        int high = Math.max(x, y);
+        if (this.counts.getWeight(low, high)
+                >= this.counts.getWeight(high, low)) {
+            return low;
+        }
+        return high;
+    }
+
+    /**Returns whether one pair comes before another in the order Kruskal's
+     * algorithm takes them in: by the count of their better segments,
+     * highest first, then by those segments in row-major order.
+     * @param x1 one end of the first pair
+     * @param y1 the other end of the first pair
+     * @param x2 one end of the second pair
+     * @param y2 the other end of the second pair
+     * @return true if the first pair comes first
+     */
+    private boolean isBetter(int x1, int y1, int x2, int y2) {
+        int from1 = this.bestFrom(x1, y1);
+        int to1 = x1 + y1 - from1;
+        int from2 = this.bestFrom(x2, y2);
+        int to2 = x2 + y2 - from2;
+        int count1 = this.counts.getWeight(from1, to1);
+        int count2 = this.counts.getWeight(from2, to2);
+        if (count1 != count2) {
+            return count1 > count2;
+        }
+        if (from1 != from2) {
+            return from1 < from2;
+        }
+        return to1 < to2;
+    }
+
+    /**Describes a skeleton flight added or removed.
+     * @param x one end
+     * @param y the other end
+     * @param added whether it was added
+     * @return the flight, the lower index first
+     */
+    private Pair flight(int x, int y, boolean added) {
+        return new Pair(this.counts.getValue(Math.min(x, y)),
+                this.counts.getValue(Math.max(x, y)),
+                added ? this.weightOf(x, y) : 0);
+    }
+
+    /**Starts a new search, so that no airport is marked as reached by it.
+     * @return the no. of the search
+     */
+    private int nextStamp() {
+        if (this.stamp == Integer.MAX_VALUE) {
+            Arrays.fill(this.mark, 0);
+            this.stamp = 0;
+        }
+        return ++this.stamp;
+    }
+
+    /**Adds y to the row of x in a list of neighbors.
+     * @param rows the rows of neighbors
+     * @param sizes the no. of neighbors in each row
+     * @param x the airport
+     * @param y the neighbor
+     */
+    private static void addNeighbor(int[][] rows, int[] sizes, int x, int y) {
+        if (rows[x] == null) {
+            rows[x] = new int[MIN_ROW];
+        } else if (sizes[x] == rows[x].length) {
+            rows[x] = Arrays.copyOf(rows[x], 2 * sizes[x]);
+        }
+        rows[x][sizes[x]++] = y;
+    }
+
+    /**Removes y from the row of x in a list of neighbors, moving the last
+     * neighbor into its place.
+     * @param rows the rows of neighbors
+     * @param sizes the no. of neighbors in each row
+     * @param x the airport
+     * @param y the neighbor
+     */
+    private static void removeNeighbor(int[][] rows, int[] sizes, int x,
+            int y) {
+        for (int k = 0; k < sizes[x]; k++) {
+            if (rows[x][k] == y) {
+                rows[x][k] = rows[x][--sizes[x]];
+                return;
+            }
+        }
+    }
+
+    /**Builds the skeleton into a graph.
+     * @param skeleton the graph to build it in; initialized here
+     * @return the skeleton, with weight 1 each way for each flight in it
+     */
+    public Graph getSkeleton(Graph skeleton) {
+        skeleton.init(this.amtOfAirports);
+        for (int i = 0; i < this.amtOfAirports; i++) {
+            skeleton.setValue(i, this.counts.getValue(i));
+        }
+        for (int i = 0; i < this.amtOfAirports; i++) {
+            for (int k = 0; k < this.treeDegree[i]; k++) {
+                skeleton.addEdge(i, this.treeAdjacent[i][k], 1);
+            }
+        }
+        return skeleton;
+    }
+
+    /** Gets the frequency of each airport over its skeleton flights, as
+     * SkeletonGenerator writes them to airportFrequencies.txt.
+     * @return a copy of the frequencies
+     */
+    public int[] getFrequencies() {
+        return Arrays.copyOf(this.totals, this.amtOfAirports);
+    }
+
+    /** Gets the current count of a segment.
+     * @param from the airport it is flown from
+     * @param to the airport it is flown to
+     * @return the count
+     */
+    public int getFrequency(int from, int to) {
+        return this.counts.getWeight(from, to);
+    }
+
+    /**Gets the index of an airport.
+     * @param name the airport's name
+     * @return the index
+     * @throws IllegalArgumentException if there is no such airport
+     */
+    private int indexOf(String name) {
+        Integer index = this.airports.get(name);
+        if (index == null) {
+            throw new IllegalArgumentException("Unknown airport " + name
+                    + ".");
+        }
+        return index;
+    }
+}
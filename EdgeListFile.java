@@ -0,0 +1,129 @@
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.HashMap;
+
+/**Writes and reads a graph as a list of its edges, the sparse
+ * alternative to the V by V grid of printGraphToFile.
+ *
+ * The first line is "EDGES" and the no. of airports, the second the
+ * airport names in index order, separated by spaces, and every other line
+ * one edge in the form "BWI PHL 12", as the flights are given to
+ * RouteGenerator, in row-major order. A frequency graph with E segments
+ * takes E lines instead of V^2 cells, and a skeleton 2(V - 1).
+ *
+ * A grid starts with spaces, so the two can be told apart by the first
+ * line.
+ *
+ * @author smsukardi
+ */
+public final class EdgeListFile {
+
+    /** The first word of every edge list. */
+    public static final String HEADER = "EDGES";
+
+    /**Empty constructor.
+     */
+    private EdgeListFile() {
+    }
+
+    /**Returns whether a file starts like an edge list.
+     * @param fileName the file to check
+     * @return true if its first line starts with HEADER
+     * @throws IOException if the file cannot be read
+     */
+    public static boolean isEdgeList(String fileName) throws IOException {
+        BufferedReader input = new BufferedReader(new FileReader(fileName));
+        try {
+            String first = input.readLine();
+            return first != null && first.startsWith(HEADER + " ");
+        } finally {
+            input.close();
+        }
+    }
+
+    /**Prints a graph as an edge list.
+     * @param yourGraph the graph
+     * @param output the file to print to
+     */
+    public static void write(Graph yourGraph, PrintWriter output) {
+        int amtOfAirports = yourGraph.nodeCount();
+        output.println(HEADER + " " + amtOfAirports);
+        for (int i = 0; i < amtOfAirports; i++) {
+            if (i > 0) {
+                output.print(' ');
+            }
+            output.print(yourGraph.getValue(i));
+        }
+        output.println();
+        for (int i = 0; i < amtOfAirports; i++) {
+            for (int j : yourGraph.neighbors(i)) {
+                int weight = yourGraph.getWeight(i, j);
+                if (weight != 0) {
+                    output.println(yourGraph.getValue(i) + " "
+                            + yourGraph.getValue(j) + " " + weight);
+                }
+            }
+        }
+    }
+
+    /**Reads an edge list into a graph.
+     * @param fileName the file to read
+     * @param yourGraph the graph, not yet set up
+     * @return the graph
+     * @throws IOException if the file cannot be read or is not an edge
+     * list of known airports
+     */
+    public static Graph read(String fileName, Graph yourGraph)
+            throws IOException {
+        BufferedReader input = new BufferedReader(new FileReader(fileName));
+        try {
+            String[] header = split(input.readLine());
+            if (header.length != 2 || !header[0].equals(HEADER)) {
+                throw new IOException(fileName + " is not an edge list.");
+            }
+            int amtOfAirports = Integer.parseInt(header[1]);
+            String[] names = split(input.readLine());
+            if (names.length != amtOfAirports) {
+                throw new IOException("Expected " + amtOfAirports
+                        + " airports in " + fileName + ".");
+            }
+            yourGraph.init(amtOfAirports);
+            HashMap<String, Integer> airports = new HashMap<String, Integer>();
+            for (int i = 0; i < amtOfAirports; i++) {
+                yourGraph.setValue(i, names[i]);
+                airports.put(names[i], i);
+            }
+
+            String line;
+            while ((line = input.readLine()) != null) {
+                String[] edge = split(line);
+                if (edge.length == 0) {
+                    continue;
+                }
+                Integer from = edge.length == 3 ? airports.get(edge[0]) : null;
+                Integer to = edge.length == 3 ? airports.get(edge[1]) : null;
+                if (from == null || to == null) {
+                    throw new IOException("Bad edge \"" + line + "\" in "
+                            + fileName + ".");
+                }
+                yourGraph.addEdge(from, to, Integer.parseInt(edge[2]));
+            }
+            return yourGraph;
+        } finally {
+            input.close();
+        }
+    }
+
+    /**Splits a line into its words.
+     * @param line the line, or null at the end of the file
+     * @return the words; none for a blank line or no line
+     */
+    private static String[] split(String line) {
+        if (line == null || line.trim().isEmpty()) {
+            return new String[0];
+        }
+        return line.trim().split("\\s+");
+    }
+}
@@ -0,0 +1,134 @@
+import java.io.IOException;
+import java.io.PrintWriter;
+
+/**Runs RouteGenerator, FrequencyGenerator and SkeletonGenerator as one
+ * program, passing the routes, the frequencies and the skeleton between
+ * them in memory instead of through routes.txt and frequencies.txt.
+ *
+ * The routes are counted straight from each source's shortest path trees
+ * as they are found. routes.txt and frequencies.txt are only written when
+ * asked for; skeleton.txt and airportFrequencies.txt are always written.
+ *
+ * @author smsukardi
+ */
+public final class FlightPipeline {
+
+    /**Empty constructor.
+     */
+    private FlightPipeline() {
+    }
+
+    /**Main method.
+     *
+     * @param args the .txt file containing flight information, the
+     * threshold, then any of -sparse, -threads #, -routes, -frequencies,
+     * -mapped, -edges
+     * @throws IOException if a file cannot be read or written
+     */
+    public static void main(String[] args) throws IOException {
+        boolean sparse = false;
+        boolean writeRoutes = false;
+        boolean writeFrequencies = false;
+        boolean mapped = false;
+        boolean edges = false;
+        int parallelism = 1;
+
+        //Ensures correct argument length
+        if (args.length <= 1) {
+            System.out.println("Please enter a .txt file containing "
+                    + "flight information followed by the max. no. of "
+                    + "segments as command-line input.");
+            return;
+        }
+        //stores the arguments in the variables
+        String fileName = args[0];
+        int threshold = Integer.parseInt(args[1]);
+        for (int i = 2; i < args.length; i++) {
+            if (args[i].equals("-sparse")) {
+                sparse = true;
+            } else if (args[i].equals("-routes")) {
+                writeRoutes = true;
+            } else if (args[i].equals("-frequencies")) {
+                writeFrequencies = true;
+            } else if (args[i].equals("-mapped")) {
+                mapped = true;
+            } else if (args[i].equals("-edges")) {
+                edges = true;
+            } else if (args[i].equals("-threads") && i + 1 < args.length) {
+                parallelism = RouteRunner.parallelism(
+                        Integer.parseInt(args[++i]));
+            }
+        }
+
+        //Reads the flights into a graph
+        Graph yourGraph = RouteGenerator.readGraph(fileName, sparse);
+        int amtOfAirports = yourGraph.nodeCount();
+        threshold = RouteGenerator.maxSegments(threshold, amtOfAirports);
+
+        //Constructs the frequency graph, with the same airport indices
+        final Graph frequencies;
+        if (mapped) {
+            //starts with 2-byte counts, widened if one goes over
+            frequencies = new MappedGraph(
+                    FrequencyGenerator.FREQUENCIES_FILE);
+        } else if (sparse) {
+            frequencies = new GraphCSR();
+        } else {
+            frequencies = new SegmentCounter();
+        }
+        frequencies.init(amtOfAirports);
+        for (int i = 0; i < amtOfAirports; i++) {
+            frequencies.setValue(i, yourGraph.getValue(i));
+        }
+
+        //Finds the routes from each source and counts their segments
+        RouteEngine engine = new RouteEngine(yourGraph);
+        final GraphCSR graph = engine.getGraph();
+        final PrintWriter routesOutput;
+        if (writeRoutes) {
+            routesOutput = new PrintWriter("routes.txt");
+        } else {
+            routesOutput = null;
+        }
+        try {
+            RouteRunner.run(engine, threshold, parallelism, 
+                routes -> routes, 
+                routes -> {
+                    FrequencyGenerator.countRoutes(routes, frequencies);
+                    if (routesOutput != null) {
+                        routesOutput.print(
+                                RouteGenerator.formatRoutes(routes, graph));
+                    }
+                });
+        } finally {
+            if (routesOutput != null) {
+                routesOutput.close();
+            }
+        }
+        if (writeFrequencies) {
+            FrequencyGenerator.printFrequencies(frequencies, edges);
+        }
+
+        //Builds the skeleton and prints it with the airport frequencies
+        Graph skeleton;
+        Graph skeletonFrequencies = frequencies;
+        if (mapped) {
+            //saves the frequencies, then maps them again copy-on-write, as
+            //the flights not in the skeleton are removed from them
+            ((MappedGraph) frequencies).close();
+            skeletonFrequencies = MappedGraph.open(
+                    FrequencyGenerator.FREQUENCIES_FILE, false);
+            skeleton = SkeletonGenerator.buildSkeleton(skeletonFrequencies,
+                    new MappedGraph(SkeletonGenerator.SKELETON_FILE, 1),
+                    parallelism);
+        } else {
+            skeleton = SkeletonGenerator.buildSkeleton(frequencies, sparse,
+                    parallelism);
+        }
+        SkeletonGenerator.printToFile(skeleton, skeletonFrequencies, edges);
+        if (mapped) {
+            ((MappedGraph) skeleton).close();
+            ((MappedGraph) skeletonFrequencies).close();
+        }
+    }
+}
@@ -0,0 +1,327 @@
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+/**Reads a file of flights, one per line in the form "BWI PHL 80", in a
+ * single pass.
+ *
+ * The file is read in large blocks of bytes and parsed without creating a
+ * String per line or per token. Airport codes are packed into ints and
+ * given dense indices by an AirportIndex, in the order they are first
+ * seen, and the flights are kept in growing primitive arrays.
+ *
+ * As with the original Scanner-based reader, reading stops at the first
+ * line whose first two tokens are not 3-letter codes (such as a blank
+ * line).
+ *
+ * @author smsukardi
+ */
+public class FlightReader {
+
+    /** The size of the blocks the file is read in. */
+    private static final int BLOCK_SIZE = 1 << 16;
+    /** The no. of letters in an airport code. */
+    private static final int CODE_LENGTH = 3;
+    /** The no. of flights there is room for at first. */
+    private static final int INITIAL_FLIGHTS = 1024;
+
+    /** The airports seen so far. */
+    private AirportIndex airports;
+    /** The start airport of each flight. */
+    private int[] from;
+    /** The destination airport of each flight. */
+    private int[] to;
+    /** The mileage of each flight. */
+    private int[] miles;
+    /** The no. of flights read. */
+    private int flightCount;
+
+    /** The stream being read. */
+    private InputStream input;
+    /** The current block of the file. */
+    private byte[] block;
+    /** The position of the next byte in the block. */
+    private int position;
+    /** The no. of bytes in the block. */
+    private int limit;
+    /** The no. of the line being read, for error messages. */
+    private int line;
+
+    /**Constructor.
+     */
+    private FlightReader() {
+        this.airports = new AirportIndex();
+        this.from = new int[INITIAL_FLIGHTS];
+        this.to = new int[INITIAL_FLIGHTS];
+        this.miles = new int[INITIAL_FLIGHTS];
+        this.block = new byte[BLOCK_SIZE];
+    }
+
+    /**Reads a file of flights.
+     * @param fileName the file name of the .txt file to open
+     * @return the flights read
+     * @throws IOException if the file cannot be read
+     */
+    public static FlightReader read(String fileName) throws IOException {
+        FlightReader flights = new FlightReader();
+        flights.input = new FileInputStream(fileName);
+        try {
+            flights.readFlights();
+        } finally {
+            flights.input.close();
+            flights.input = null;
+            flights.block = null;
+        }
+        return flights;
+    }
+
+    /** Returns the no. of airports.
+     * @return the no. of airports
+     */
+    public int getAirportCount() {
+        return this.airports.size();
+    }
+
+    /** Returns the airports and their indices.
+     * @return the airport index
+     */
+    public AirportIndex getAirports() {
+        return this.airports;
+    }
+
+    /** Returns the no. of flights.
+     * @return the no. of flights
+     */
+    public int getFlightCount() {
+        return this.flightCount;
+    }
+
+    /** Returns the start airport of a flight.
+     * @param flight the no. of the flight, in file order
+     * @return the index of the start airport
+     */
+    public int getFrom(int flight) {
+        return this.from[flight];
+    }
+
+    /** Returns the destination airport of a flight.
+     * @param flight the no. of the flight, in file order
+     * @return the index of the destination airport
+     */
+    public int getTo(int flight) {
+        return this.to[flight];
+    }
+
+    /** Returns the mileage of a flight.
+     * @param flight the no. of the flight, in file order
+     * @return the mileage
+     */
+    public int getMiles(int flight) {
+        return this.miles[flight];
+    }
+
+    /**Builds a graph with a flight each way for every line read. As with
+     * GraphMatrix.addEdge, a later line for the same airports replaces
+     * the mileage given by an earlier one.
+     * @param sparse whether to use a GraphCSR instead of a GraphMatrix
+     * @return the graph
+     */
+    public Graph toGraph(boolean sparse) {
+        String[] names = this.airports.getNames();
+        if (sparse) {
+            int[] start = new int[2 * this.flightCount];
+            int[] end = new int[2 * this.flightCount];
+            int[] weight = new int[2 * this.flightCount];
+            for (int i = 0; i < this.flightCount; i++) {
+                start[2 * i] = this.from[i];
+                end[2 * i] = this.to[i];
+                start[2 * i + 1] = this.to[i];
+                end[2 * i + 1] = this.from[i];
+                weight[2 * i] = this.miles[i];
+                weight[2 * i + 1] = this.miles[i];
+            }
+            return GraphCSR.fromEdges(names, start, end, weight,
+                    2 * this.flightCount);
+        }
+        Graph yourGraph = new GraphMatrix();
+        yourGraph.init(names.length);
+        for (int i = 0; i < names.length; i++) {
+            yourGraph.setValue(i, names[i]);
+        }
+        for (int i = 0; i < this.flightCount; i++) {
+            yourGraph.addEdge(this.from[i], this.to[i], this.miles[i]);
+            yourGraph.addEdge(this.to[i], this.from[i], this.miles[i]);
+        }
+        return yourGraph;
+    }
+
+    /**Reads lines until the end of the file or a line which is not a
+     * flight.
+     * @throws IOException if the file cannot be read
+     */
+    private void readFlights() throws IOException {
+        while (this.peek() != -1) {
+            this.line++;
+            int first = this.readCode();
+            if (first < 0) {
+                return;
+            }
+            this.skipSpaces();
+            int second = this.readCode();
+            if (second < 0) {
+                return;
+            }
+            this.skipSpaces();
+            int mileage = this.readNumber();
+            this.skipLine();
+            this.addFlight(this.airports.getOrAdd(first),
+                    this.airports.getOrAdd(second), mileage);
+        }
+    }
+
+    /**Reads a token, which must be a 3-letter code.
+     * @return the packed code, or -1 if the token is not 3 letters long
+     * @throws IOException if the file cannot be read
+     */
+    private int readCode() throws IOException {
+        int code = 0;
+        int length = 0;
+        while (!isSpace(this.peek()) && !isEndOfLine(this.peek())) {
+            if (length == CODE_LENGTH) {
+                return -1;
+            }
+            //packs the letters as AirportIndex.pack does
+            code = (code << Byte.SIZE) | this.next();
+            length++;
+        }
+        if (length != CODE_LENGTH) {
+            return -1;
+        }
+        return code;
+    }
+
+    /**Reads a token, which must be a whole number.
+     * @return the number
+     * @throws IOException if the file cannot be read
+     */
+    private int readNumber() throws IOException {
+        boolean negative = false;
+        if (this.peek() == '-' || this.peek() == '+') {
+            negative = this.next() == '-';
+        }
+        long number = 0;
+        int digits = 0;
+        while (!isSpace(this.peek()) && !isEndOfLine(this.peek())) {
+            int c = this.next();
+            if (c < '0' || c > '9') {
+                throw new NumberFormatException("Bad mileage on line "
+                        + this.line);
+            }
+            number = 10 * number + (c - '0');
+            digits++;
+            if (number > Integer.MAX_VALUE + 1L) {
+                throw new NumberFormatException("Mileage too large on line "
+                        + this.line);
+            }
+        }
+        if (digits == 0) {
+            throw new NumberFormatException("Missing mileage on line "
+                    + this.line);
+        }
+        if (negative) {
+            number = -number;
+        }
+        if (number > Integer.MAX_VALUE) {
+            throw new NumberFormatException("Mileage too large on line "
+                    + this.line);
+        }
+        return (int) number;
+    }
+
+    /**Skips spaces and tabs within a line.
+     * @throws IOException if the file cannot be read
+     */
+    private void skipSpaces() throws IOException {
+        while (isSpace(this.peek())) {
+            this.next();
+        }
+    }
+
+    /**Skips the rest of the line, including the line break.
+     * @throws IOException if the file cannot be read
+     */
+    private void skipLine() throws IOException {
+        while (this.peek() != -1 && !isEndOfLine(this.peek())) {
+            this.next();
+        }
+        if (this.peek() == '\r') {
+            this.next();
+        }
+        if (this.peek() == '\n') {
+            this.next();
+        }
+    }
+
+    /**Adds a flight to the arrays, growing them if they are full.
+     * @param start the index of the start airport
+     * @param dest the index of the destination airport
+     * @param mileage the mileage
+     */
+    private void addFlight(int start, int dest, int mileage) {
+        if (this.flightCount == this.from.length) {
+            int size = 2 * this.flightCount;
+            this.from = Arrays.copyOf(this.from, size);
+            this.to = Arrays.copyOf(this.to, size);
+            this.miles = Arrays.copyOf(this.miles, size);
+        }
+        this.from[this.flightCount] = start;
+        this.to[this.flightCount] = dest;
+        this.miles[this.flightCount] = mileage;
+        this.flightCount++;
+    }
+
+    /**Returns the next byte without reading past it.
+     * @return the next byte, or -1 at the end of the file
+     * @throws IOException if the file cannot be read
+     */
+    private int peek() throws IOException {
+        if (this.position == this.limit) {
+            this.limit = this.input.read(this.block);
+            this.position = 0;
+            if (this.limit <= 0) {
+                this.limit = 0;
+                return -1;
+            }
+        }
+        return this.block[this.position] & 0xFF;
+    }
+
+    /**Reads the next byte.
+     * @return the next byte, or -1 at the end of the file
+     * @throws IOException if the file cannot be read
+     */
+    private int next() throws IOException {
+        int c = this.peek();
+        if (c != -1) {
+            this.position++;
+        }
+        return c;
+    }
+
+    /**Returns whether a byte separates tokens within a line.
+     * @param c the byte
+     * @return true for a space, tab, vertical tab or form feed
+     */
+    private static boolean isSpace(int c) {
+        return c == ' ' || c == '\t' || c == 0x0B || c == '\f';
+    }
+
+    /**Returns whether a byte ends a line.
+     * @param c the byte, or -1 at the end of the file
+     * @return true for a line break or the end of the file
+     */
+    private static boolean isEndOfLine(int c) {
+        return c == '\n' || c == '\r' || c == -1;
+    }
+}
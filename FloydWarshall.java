@@ -0,0 +1,331 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.IntConsumer;
+
+/**Finds the shortest paths between every pair of airports at once with
+ * the Floyd-Warshall algorithm, for dense networks where most airports
+ * have flights to most others.
+ *
+ * On such a network a search from every source is O(V^3) however it is
+ * done, and the V^3 Floyd-Warshall loop has no heap and no adjacency
+ * lists to chase. The distances are kept in one flat row-major int[], and
+ * the loop is run in square blocks small enough to stay in the cache: at
+ * each step the block on the diagonal is done first, then the blocks in
+ * its row and column, then every other block. The blocks within each of
+ * the last two phases are independent, so they are spread over a
+ * fork-join pool. The innermost loop is a plain min-plus over a run of
+ * ints from two different arrays, which leaves HotSpot free to vectorize
+ * it.
+ *
+ * The same is done with every flight counted as one segment when routes
+ * by no. of segments are needed. The routes are not read from a next-hop
+ * matrix, which would break ties differently from RouteGenerator. Instead
+ * the tree from each source is rebuilt from the distances, taking as the
+ * airport before each airport the one the searches would settle first
+ * out of those with a flight on a shortest path to it, just as they do.
+ * The routes are then exactly those RouteEngine finds.
+ *
+ * Each matrix takes 4V^2 bytes.
+ *
+ * @author smsukardi
+ */
+public class FloydWarshall {
+
+    /** The no. of airports along each side of a block. */
+    private static final int BLOCK_SIZE = 64;
+    /** The most airports whose matrix an int[] can index. */
+    public static final int MAX_AIRPORTS = 46340;
+
+    /** The graph. */
+    private GraphCSR graph;
+    /** Stores the amount of airports. */
+    private int amtOfAirports;
+    /** The no. of threads to run the blocks on. */
+    private int parallelism;
+    /** The mileage from each airport to each airport, row-major. */
+    private int[] distances;
+    /** The no. of segments from each airport to each airport, row-major,
+     * or null until it is first needed. */
+    private int[] segments;
+
+    /**Constructor. Finds the mileage between every pair of airports.
+     * @param yourGraph the graph of flights, copied once if not a GraphCSR
+     * @param parallelism the no. of threads to use
+     * @throws IllegalArgumentException if there are more than MAX_AIRPORTS
+     */
+    public FloydWarshall(Graph yourGraph, int parallelism) {
+        if (yourGraph instanceof GraphCSR) {
+            this.graph = (GraphCSR) yourGraph;
+        } else {
+            this.graph = GraphCSR.fromGraph(yourGraph);
+        }
+        this.graph.compact();
+        this.amtOfAirports = this.graph.nodeCount();
+        if (this.amtOfAirports > MAX_AIRPORTS) {
+            throw new IllegalArgumentException("Too many airports ("
+                    + this.amtOfAirports + ") for an all-pairs matrix.");
+        }
+        this.parallelism = parallelism;
+        this.distances = this.initialMatrix(false);
+        solve(this.distances, this.amtOfAirports, parallelism);
+    }
+
+    /** Gets the graph.
+     * @return the graph
+     */
+    public GraphCSR getGraph() {
+        return this.graph;
+    }
+
+    /**Gets the mileage of the shortest route between two airports.
+     * @param u the source node
+     * @param v the destination node
+     * @return the mileage, or INFINITY if v cannot be reached
+     */
+    public int getDistance(int u, int v) {
+        return this.distances[u * this.amtOfAirports + v];
+    }
+
+    /**Gets the no. of segments of the route with the fewest between two
+     * airports, finding them for every pair the first time.
+     * @param u the source node
+     * @param v the destination node
+     * @return the no. of segments, or INFINITY if v cannot be reached
+     */
+    public int getSegments(int u, int v) {
+        return this.segmentMatrix()[u * this.amtOfAirports + v];
+    }
+
+    /**Finds the routes from a source airport, the same as
+     * RouteEngine.routes. May be called from any no. of threads.
+     * @param sourceNode the source node
+     * @param threshold the max. no. of segments of a route chosen by mileage
+     * @return the routes from the source
+     */
+    public SourceRoutes routes(int sourceNode, int threshold) {
+        ShortestPathTree mileage = this.tree(sourceNode, this.distances,
+                false);
+        for (int i = 0; i < this.amtOfAirports; i++) {
+            if (mileage.getHops(i) > threshold) {
+                return new SourceRoutes(mileage, this.tree(sourceNode,
+                        this.segmentMatrix(), true), threshold);
+            }
+        }
+        return new SourceRoutes(mileage, null, threshold);
+    }
+
+    /**Gets the no. of segments between every pair of airports, finding
+     * them the first time.
+     * @return the matrix of segments
+     */
+    private synchronized int[] segmentMatrix() {
+        if (this.segments == null) {
+            int[] matrix = this.initialMatrix(true);
+            solve(matrix, this.amtOfAirports, this.parallelism);
+            this.segments = matrix;
+        }
+        return this.segments;
+    }
+
+    /**Builds the matrix of single flights: 0 from each airport to itself,
+     * the flight where there is one, and INFINITY elsewhere.
+     * @param unit true to count each flight as 1 instead of its mileage
+     * @return the matrix
+     */
+    private int[] initialMatrix(boolean unit) {
+        int n = this.amtOfAirports;
+        int[] matrix = new int[n * n];
+        Arrays.fill(matrix, Dijkstra.INFINITY);
+        for (int u = 0; u < n; u++) {
+            matrix[u * n + u] = 0;
+            for (int e = this.graph.firstEdge(u);
+                    e < this.graph.endEdge(u); e++) {
+                int v = this.graph.edgeTarget(e);
+                int weight = this.graph.edgeWeight(e);
+                //only flights with a positive mileage count
+                if (v != u && weight > 0) {
+                    matrix[u * n + v] = unit ? 1 : weight;
+                }
+            }
+        }
+        return matrix;
+    }
+
+    /**Rebuilds the shortest path tree from a source out of the distances.
+     * Each airport's predecessor is the airport the search would settle
+     * first out of those with a flight on a shortest path to it: the
+     * nearest, then the highest index.
+     * @param sourceNode the source node
+     * @param matrix the distances between every pair of airports
+     * @param unit true if each flight counts as 1
+     * @return the shortest path tree
+     */
+    private ShortestPathTree tree(int sourceNode, int[] matrix,
+            boolean unit) {
+        int n = this.amtOfAirports;
+        int row = sourceNode * n;
+        int[] predecessor = new int[n];
+        Arrays.fill(predecessor, -1);
+        //goes through the flights in the order they are stored, rather
+        //than the order the airports are settled in, to read them once
+        //from start to end
+        for (int u = 0; u < n; u++) {
+            int toU = matrix[row + u];
+            if (toU >= Dijkstra.INFINITY) {
+                continue;
+            }
+            for (int e = this.graph.firstEdge(u);
+                    e < this.graph.endEdge(u); e++) {
+                int v = this.graph.edgeTarget(e);
+                int weight = this.graph.edgeWeight(e);
+                if (weight <= 0 || v == sourceNode
+                        || toU + (unit ? 1 : weight) != matrix[row + v]) {
+                    continue;
+                }
+                int before = predecessor[v];
+                if (before < 0) {
+                    predecessor[v] = u;
+                    continue;
+                }
+                //u has a higher index than before, so wins a tie
+                if (toU <= matrix[row + before]) {
+                    predecessor[v] = u;
+                }
+            }
+        }
+
+        //sets the paths in the order the search settles the airports, so
+        //that each predecessor's path is set first
+        long[] order = new long[n];
+        int reached = 0;
+        for (int v = 0; v < n; v++) {
+            if (predecessor[v] >= 0) {
+                order[reached++] = ((long) matrix[row + v] << 32)
+                        | (n - 1 - v);
+            }
+        }
+        Arrays.sort(order, 0, reached);
+        ShortestPathTree tree = new ShortestPathTree(sourceNode,
+                new int[n]);
+        for (int i = 0; i < reached; i++) {
+            int v = n - 1 - (int) order[i];
+            tree.setPath(v, predecessor[v], matrix[row + v]);
+        }
+        return tree;
+    }
+
+    /**Runs the blocked Floyd-Warshall algorithm on a matrix in place.
+     * @param matrix the n by n matrix of flights, row-major, with
+     * INFINITY where there is none; becomes the matrix of distances
+     * @param n the no. of airports
+     * @param parallelism the no. of threads to use
+     */
+    public static void solve(final int[] matrix, final int n,
+            int parallelism) {
+        final int blocks = (n + BLOCK_SIZE - 1) / BLOCK_SIZE;
+        ForkJoinPool pool = null;
+        if (parallelism > 1) {
+            pool = new ForkJoinPool(parallelism);
+        }
+        try {
+            for (int kb = 0; kb < blocks; kb++) {
+                final int k0 = kb * BLOCK_SIZE;
+                final int k1 = Math.min(n, k0 + BLOCK_SIZE);
+                final int k = kb;
+                relaxBlock(matrix, n, k0, k1, k0, k1, k0, k1);
+                //the blocks in the diagonal block's row and column only
+                //depend on it
+                forEachBlock(pool, blocks, b -> {
+                    if (b != k) {
+                        int b0 = b * BLOCK_SIZE;
+                        int b1 = Math.min(n, b0 + BLOCK_SIZE);
+                        relaxBlock(matrix, n, k0, k1, k0, k1, b0, b1);
+                        relaxBlock(matrix, n, k0, k1, b0, b1, k0, k1);
+                    }
+                });
+                //every other block only depends on those
+                forEachBlock(pool, blocks, ib -> {
+                    if (ib == k) {
+                        return;
+                    }
+                    int i0 = ib * BLOCK_SIZE;
+                    int i1 = Math.min(n, i0 + BLOCK_SIZE);
+                    for (int jb = 0; jb < blocks; jb++) {
+                        if (jb != k) {
+                            int j0 = jb * BLOCK_SIZE;
+                            relaxBlock(matrix, n, k0, k1, i0, i1, j0,
+                                    Math.min(n, j0 + BLOCK_SIZE));
+                        }
+                    }
+                });
+            }
+        } finally {
+            if (pool != null) {
+                pool.shutdownNow();
+            }
+        }
+    }
+
+    /**Runs some work for every block row or column, on the pool if there
+     * is one, and waits for all of it.
+     * @param pool the pool, or null to run on this thread
+     * @param blocks the no. of blocks
+     * @param work the work for a block, given its index
+     */
+    private static void forEachBlock(ForkJoinPool pool, int blocks,
+            IntConsumer work) {
+        if (pool == null) {
+            for (int b = 0; b < blocks; b++) {
+                work.accept(b);
+            }
+            return;
+        }
+        ArrayList<ForkJoinTask<?>> running =
+                new ArrayList<ForkJoinTask<?>>(blocks);
+        for (int b = 0; b < blocks; b++) {
+            final int block = b;
+            running.add(pool.submit(() -> work.accept(block)));
+        }
+        for (ForkJoinTask<?> task : running) {
+            task.join();
+        }
+    }
+
+    /**Shortens the distances in one block through the airports of
+     * another. The airports gone through are the outer loop, so the block
+     * may be the diagonal block or share its rows or columns.
+     * @param matrix the distances
+     * @param n the no. of airports
+     * @param k0 the first airport gone through
+     * @param k1 one past the last airport gone through
+     * @param r0 the block's first row
+     * @param r1 one past its last row
+     * @param c0 the block's first column
+     * @param c1 one past its last column
+     */
+    private static void relaxBlock(int[] matrix, int n, int k0, int k1,
+            int r0, int r1, int c0, int c1) {
+        int width = c1 - c0;
+        int[] fromM = new int[width];
+        for (int m = k0; m < k1; m++) {
+            //a copy of row m lets the inner loop be vectorized, since it
+            //no longer reads and writes the same array; row m itself does
+            //not change while going through m
+            System.arraycopy(matrix, m * n + c0, fromM, 0, width);
+            for (int r = r0; r < r1; r++) {
+                int rowR = r * n + c0;
+                int toM = matrix[r * n + m];
+                if (toM >= Dijkstra.INFINITY) {
+                    continue;
+                }
+                //INFINITY + INFINITY still fits in an int
+                for (int c = 0; c < width; c++) {
+                    matrix[rowR + c] = Math.min(matrix[rowR + c],
+                            toM + fromM[c]);
+                }
+            }
+        }
+    }
+}
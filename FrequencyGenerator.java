@@ -1,5 +1,6 @@
 import java.io.File;
 import java.io.FileNotFoundException;
+import java.io.IOException;
 import java.io.PrintWriter;
 import java.util.HashMap;
 import java.util.Scanner;
@@ -10,23 +11,63 @@ import java.util.Scanner;
  * @author smsukardi
  */
 public class FrequencyGenerator {
+
+    /** The file the frequencies are kept in with -mapped. */
+    public static final String FREQUENCIES_FILE = "frequencies.map";
     
     /**Main method.
      * 
-     * @param args arguments (the .txt file containing information).
-     * @throws FileNotFoundException a filenotfound exception
+     * @param args arguments (routes.txt, or a routes.bin written by
+     * RouteGenerator -binary), then -sparse or -mapped, -threads # to
+     * count a routes.txt on # threads, and -edges to write an edge list.
+     * @throws IOException if a file cannot be read or written
      */
-    public static void main(String[] args) throws FileNotFoundException {
+    public static void main(String[] args) throws IOException {
         String fileName = "";
+        boolean sparse = false;
+        boolean mapped = false;
+        boolean edges = false;
+        int parallelism = 0;
         
-        if (args.length != 1) {
+        if (args.length < 1) {
             System.out.println("Please enter a .txt file containing "
                     + "flight information.");
         } else {
             //stores the arguments in the variables
             fileName = args[0];
         }
+        //reads the optional flags following the file name
+        for (int i = 1; i < args.length; i++) {
+            if (args[i].equals("-sparse")) {
+                sparse = true;
+            } else if (args[i].equals("-mapped")) {
+                mapped = true;
+            } else if (args[i].equals("-edges")) {
+                edges = true;
+            } else if (args[i].equals("-threads") && i + 1 < args.length) {
+                parallelism = RouteRunner.parallelism(
+                        Integer.parseInt(args[++i]));
+            }
+        }
         
+        //counts a routes.bin straight from its trees
+        if (RouteFile.isRouteFile(fileName)) {
+            Graph yourGraph = countRouteFile(fileName, sparse, mapped);
+            printFrequencies(yourGraph, edges);
+            closeGraph(yourGraph);
+            return;
+        }
+
+        //counts a routes.txt in chunks on several threads, in one read
+        if (parallelism > 0) {
+            RouteCounter counts = RouteCounter.count(fileName, parallelism);
+            Graph yourGraph = newGraph(sparse, mapped);
+            counts.fill(yourGraph);
+            printFrequencies(yourGraph, edges);
+            closeGraph(yourGraph);
+            return;
+        }
+
         HashMap<String, Integer> myMap = new HashMap<String, Integer>();
         int amtOfAirports = 0;
         boolean emptyLine = false;
@@ -48,8 +89,8 @@ public class FrequencyGenerator {
         } 
         firstRead.close(); //closes the scanner
         
-        //Constructs a new GraphMatrix
-        GraphMatrix yourGraph = new GraphMatrix();
+        //Constructs a new SegmentCounter, or a GraphCSR with -sparse
+        Graph yourGraph = newGraph(sparse, mapped);
         yourGraph.init(amtOfAirports);
         //inserts the airports in the 2-D adjacency matrix
         for (String key : myMap.keySet()) {
@@ -72,18 +113,145 @@ public class FrequencyGenerator {
         secondRead.close();
         
         //Prints to a .txt file
-        FrequencyGenerator myGenerator = new FrequencyGenerator();
-        PrintWriter output = new PrintWriter("frequencies.txt");
-        myGenerator.printGraphToFile(yourGraph, output);
-        output.close();        
+        printFrequencies(yourGraph, edges);
+        closeGraph(yourGraph);
+    }
+
+    /**Constructs an empty frequency graph of the chosen implementation,
+     * by default a SegmentCounter, which only keeps the segments flown.
+     * 
+     * @param sparse whether to use a GraphCSR instead
+     * @param mapped whether to use a MappedGraph in frequencies.map
+     * @return the graph
+     */
+    private static Graph newGraph(boolean sparse, boolean mapped) {
+        if (mapped) {
+            //starts with 2-byte counts, widened if one goes over
+            return new MappedGraph(FREQUENCIES_FILE);
+        }
+        if (sparse) {
+            return new GraphCSR();
+        }
+        return new SegmentCounter();
+    }
+
+    /**Closes a frequency graph kept in a file, so that it is saved.
+     * 
+     * @param yourGraph the graph
+     * @throws IOException if the file cannot be written
+     */
+    private static void closeGraph(Graph yourGraph) throws IOException {
+        if (yourGraph instanceof MappedGraph) {
+            ((MappedGraph) yourGraph).close();
+        }
+    }
+
+    /**Counts the segments flown on every route in a routes.bin, one
+     * source at a time, without rebuilding the routes, into a graph kept
+     * in frequencies.map if mapped is set.
+     * 
+     * @param fileName the routes.bin to read
+     * @param sparse whether to use a GraphCSR instead of a SegmentCounter
+     * @param mapped whether to use a MappedGraph instead of either
+     * @return the frequency graph
+     * @throws IOException if the file cannot be read
+     */
+    public static Graph countRouteFile(String fileName, boolean sparse,
+            boolean mapped) throws IOException {
+        RouteFile routes = new RouteFile(fileName);
+        try {
+            Graph yourGraph = newGraph(sparse, mapped);
+            routes.airports(yourGraph);
+            while (routes.hasNext()) {
+                countRoutes(routes.next(), yourGraph);
+            }
+            return yourGraph;
+        } finally {
+            routes.close();
+        }
+    }
+
+    /**Counts the segments flown on the routes from one source, adding
+     * to the edge of the frequency graph for each segment.
+     * 
+     * No route is walked: the no. of routes flying the segment into an
+     * airport in a shortest path tree is the no. of routes (taken from
+     * that tree) which end in the subtree below it. Routes over the
+     * threshold come from the tree by no. of segments, so each tree is
+     * counted for its own routes. This is O(V) for each source.
+     * 
+     * @param routes the routes from a source
+     * @param frequencies the frequency graph, indexed as the routes are
+     */
+    public static void countRoutes(SourceRoutes routes, Graph frequencies) {
+        int amtOfAirports = frequencies.nodeCount();
+        ShortestPathTree mileage = routes.getMileageTree();
+        ShortestPathTree segments = routes.getSegmentTree();
+        //marks which tree each destination's route is taken from
+        int[] mileageRoutes = new int[amtOfAirports];
+        int[] segmentRoutes = new int[amtOfAirports];
+        for (int dest = 0; dest < amtOfAirports; dest++) {
+            if (routes.treeFor(dest) == mileage) {
+                mileageRoutes[dest] = 1;
+            } else {
+                segmentRoutes[dest] = 1;
+            }
+        }
+        countSubtrees(mileage, mileageRoutes, frequencies);
+        if (segments != null) {
+            countSubtrees(segments, segmentRoutes, frequencies);
+        }
     }
 
-    /**Prints the graph to a file.
+    /**Adds the no. of routes ending below each airport in a tree to the
+     * segment into that airport.
      * 
-     * @param yourGraph the adjacency matrix.
-     * @param output the file to be printed to.
+     * @param tree the shortest path tree
+     * @param routes 1 for each airport whose route is taken from this tree;
+     * overwritten with the no. of such routes in its subtree
+     * @param frequencies the frequency graph
      */
-    private void printGraphToFile(Graph yourGraph, PrintWriter output) {
-        yourGraph.printGraphToFile(output);
+    private static void countSubtrees(ShortestPathTree tree, int[] routes,
+            Graph frequencies) {
+        int amtOfAirports = routes.length;
+        //sorts the airports by no. of segments, so each airport comes
+        //after the airport before it on its path
+        int[] start = new int[amtOfAirports + 1];
+        for (int v = 0; v < amtOfAirports; v++) {
+            start[tree.getHops(v) + 1]++;
+        }
+        for (int h = 0; h < amtOfAirports; h++) {
+            start[h + 1] += start[h];
+        }
+        int[] order = new int[amtOfAirports];
+        for (int v = 0; v < amtOfAirports; v++) {
+            order[start[tree.getHops(v)]++] = v;
+        }
+        //adds each subtree to its parent, furthest airports first
+        for (int i = amtOfAirports - 1; i >= 0; i--) {
+            int v = order[i];
+            int u = tree.getPredecessor(v);
+            if (u >= 0 && routes[v] > 0) {
+                frequencies.incrementEdge(u, v, routes[v]);
+                routes[u] += routes[v];
+            }
+        }
+    }
+
+    /**Prints the graph to frequencies.txt.
+     * 
+     * @param yourGraph the frequency graph
+     * @param edges whether to print an edge list instead of the grid
+     * @throws FileNotFoundException if the file cannot be written
+     */
+    public static void printFrequencies(Graph yourGraph, boolean edges)
+            throws FileNotFoundException {
+        PrintWriter output = new PrintWriter("frequencies.txt");
+        if (edges) {
+            EdgeListFile.write(yourGraph, output);
+        } else {
+            yourGraph.printGraphToFile(output);
+        }
+        output.close();
     }
 }
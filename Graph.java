@@ -60,6 +60,19 @@ public interface Graph {
      */
     boolean hasEdge(int v, int w);
 
+    /**Increments the edge by 1.
+     * @param v x-coord
+     * @param w y-coord
+     */
+    void incrementEdge(int v, int w);
+
+    /**Adds an amount to the weight of an edge.
+     * @param v x-coord
+     * @param w y-coord
+     * @param amount the amount to add
+     */
+    void incrementEdge(int v, int w, int amount);
+
     /** Returns an array containing the indicies of the neighbors of v.
      * @param v the coordinate to find neighbors of 
      * @return an integer array of neighbors
@@ -0,0 +1,445 @@
+import java.io.PrintWriter;
+import java.util.Arrays;
+
+/**Graph compressed sparse row (CSR) implementation.
+ *
+ * The edges leaving node v are stored in targets[offsets[v]] to
+ * targets[offsets[v + 1] - 1], sorted by target, with the matching weights
+ * in the weights array. Memory is O(V + E) instead of the O(V^2) of
+ * GraphMatrix, and the neighbors of a node are found in O(degree).
+ *
+ * The graph is built in bulk: new edges are appended to a pending list
+ * and merged into the rows in a single pass the next time the graph is
+ * read (or when compact() is called). Updating the weight of an edge
+ * which already exists is done in place, and a removed edge is left in
+ * its row with weight 0 until the removed edges outnumber the others,
+ * so that removing edges row by row stays O(degree) per row.
+ *
+ * @author smsukardi
+ */
+public class GraphCSR implements Graph {
+
+    /** Pending edges are merged once there are this many of them. */
+    private static final int MIN_PENDING = 1024;
+
+    /** Where the edges of each node start; offsets[n] is the total. */
+    private int[] offsets;
+    /** The node at the other end of each edge. */
+    private int[] targets;
+    /** The weight of each edge; 0 marks an edge that has been removed. */
+    private int[] weights;
+    /** The values of the nodes. */
+    private String[] airportNames;
+    /** The number of edges in the graph. */
+    private int numEdges;
+    /** The number of removed edges still taking up space in the rows. */
+    private int removed;
+
+    /** Start nodes of the edges not yet merged into the rows. */
+    private int[] pendingFrom;
+    /** End nodes of the edges not yet merged into the rows. */
+    private int[] pendingTo;
+    /** Weights of the edges not yet merged into the rows. */
+    private int[] pendingWeight;
+    /** Whether each pending edge is an increment rather than a weight. */
+    private boolean[] pendingIncrement;
+    /** The number of pending edges. */
+    private int pendingCount;
+
+    /**Empty constructor.
+     */
+    public GraphCSR() {
+    }
+
+    /**Builds a graph in one pass from a list of edges. If an edge
+     * appears more than once the last weight given is kept, as with
+     * GraphMatrix.addEdge.
+     *
+     * @param names the values of the nodes
+     * @param from the start node of each edge
+     * @param to the end node of each edge
+     * @param weight the weight of each edge
+     * @param count the number of edges in the arrays
+     * @return the graph
+     */
+    public static GraphCSR fromEdges(String[] names, int[] from, int[] to,
+            int[] weight, int count) {
+        GraphCSR graph = new GraphCSR();
+        graph.init(names.length);
+        System.arraycopy(names, 0, graph.airportNames, 0, names.length);
+        graph.pendingFrom = from;
+        graph.pendingTo = to;
+        graph.pendingWeight = weight;
+        graph.pendingIncrement = new boolean[count];
+        graph.pendingCount = count;
+        graph.compact();
+        return graph;
+    }
+
+    /**Copies any graph (such as a GraphMatrix) into a GraphCSR.
+     *
+     * @param yourGraph the graph to copy
+     * @return the copy
+     */
+    public static GraphCSR fromGraph(Graph yourGraph) {
+        GraphCSR graph = new GraphCSR();
+        graph.init(yourGraph.nodeCount());
+        for (int v = 0; v < yourGraph.nodeCount(); v++) {
+            graph.setValue(v, yourGraph.getValue(v));
+            for (int w : yourGraph.neighbors(v)) {
+                graph.addEdge(v, w, yourGraph.getWeight(v, w));
+            }
+        }
+        graph.compact();
+        return graph;
+    }
+
+    /**Initializes the graph with n vertices.
+     * @param n the no. of vertices.
+     */
+    public void init(int n) {
+        this.offsets = new int[n + 1];
+        this.targets = new int[0];
+        this.weights = new int[0];
+        this.airportNames = new String[n];
+        this.numEdges = 0;
+        this.removed = 0;
+        this.pendingCount = 0;
+    }
+
+    /** Returns the number of vertices.
+     * @return the number of vertices
+     */
+    public int nodeCount() {
+        return this.airportNames.length;
+    }
+
+    /** Return the current number of edges.
+     * @return the number of edges
+     */
+    public int edgeCount() {
+        this.mergePending();
+        return this.numEdges;
+    }
+
+    /** Get the value of node with index v.
+     * @param v the node at which to get the value at
+     * @return the value of the node
+     */
+    public String getValue(int v) {
+        return this.airportNames[v];
+    }
+
+    /** Set the value of node with index v.
+     * @param v the index to set
+     * @param val the value to set it to
+     */
+    public void setValue(int v, String val) {
+        this.airportNames[v] = val;
+    }
+
+    /** Adds a new edge from node v to node w with weight wgt.
+     * @param v the x-coord
+     * @param w the y-coord
+     * @param weight the weight given to the edge
+     */
+    public void addEdge(int v, int w, int weight) {
+        if (weight == 0) {
+            return; // Can't store weight of 0
+        }
+        int edge = this.pendingCount == 0 ? this.findEdge(v, w) : -1;
+        if (edge >= 0) {
+            this.setWeight(edge, weight);
+        } else {
+            this.addPending(v, w, weight, false);
+        }
+    }
+
+    /** Get the weight value for an edge.
+     * @param v the x-coord
+     * @param w the y-coord
+     * @return the weight
+     */
+    public int getWeight(int v, int w) {
+        this.mergePending();
+        int edge = this.findEdge(v, w);
+        return edge < 0 ? 0 : this.weights[edge];
+    }
+
+    /** Removes the edge from the graph.
+     * @param v the x-coord
+     * @param w the y-coord
+     */
+    public void removeEdge(int v, int w) {
+        this.mergePending();
+        int edge = this.findEdge(v, w);
+        if (edge >= 0) {
+            this.setWeight(edge, 0);
+        }
+    }
+
+    /** Returns true iff the graph has the edge.
+     * @param v the x-coord
+     * @param w the y-coord
+     * @return if it has an edge
+     */
+    public boolean hasEdge(int v, int w) {
+        return this.getWeight(v, w) != 0;
+    }
+
+    /**Increments the edge by 1.
+     * @param v x-coord
+     * @param w y-coord
+     */
+    public void incrementEdge(int v, int w) {
+        this.incrementEdge(v, w, 1);
+    }
+
+    /**Adds an amount to the weight of an edge.
+     * @param v x-coord
+     * @param w y-coord
+     * @param amount the amount to add
+     */
+    public void incrementEdge(int v, int w, int amount) {
+        int edge = this.pendingCount == 0 ? this.findEdge(v, w) : -1;
+        if (edge >= 0) {
+            this.setWeight(edge, this.weights[edge] + amount);
+        } else {
+            this.addPending(v, w, amount, true);
+        }
+    }
+
+    /** Returns an array containing the indicies of the neighbors of v.
+     * @param v the coordinate to find neighbors of
+     * @return an integer array of neighbors
+     */
+    public int[] neighbors(int v) {
+        this.mergePending();
+        if (this.removed > this.numEdges) {
+            this.compact();
+        }
+        int start = this.offsets[v];
+        int end = this.offsets[v + 1];
+        if (this.removed == 0) {
+            return Arrays.copyOfRange(this.targets, start, end);
+        }
+        //skips the removed edges still in the row
+        int[] temp = new int[end - start];
+        int count = 0;
+        for (int e = start; e < end; e++) {
+            if (this.weights[e] != 0) {
+                temp[count++] = this.targets[e];
+            }
+        }
+        return count == temp.length ? temp : Arrays.copyOf(temp, count);
+    }
+
+    /**Returns the index of the first edge leaving v. The edges leaving v
+     * are firstEdge(v) up to (but not including) endEdge(v); compact()
+     * must be called after the graph was last changed.
+     * @param v the node
+     * @return the index of its first edge
+     */
+    public int firstEdge(int v) {
+        return this.offsets[v];
+    }
+
+    /**Returns the index after the last edge leaving v.
+     * @param v the node
+     * @return the index after its last edge
+     */
+    public int endEdge(int v) {
+        return this.offsets[v + 1];
+    }
+
+    /**Returns the node an edge goes to.
+     * @param edge the index of the edge
+     * @return the node at the end of the edge
+     */
+    public int edgeTarget(int edge) {
+        return this.targets[edge];
+    }
+
+    /**Returns the weight of an edge.
+     * @param edge the index of the edge
+     * @return the weight of the edge
+     */
+    public int edgeWeight(int edge) {
+        return this.weights[edge];
+    }
+
+    /**Merges the pending edges into the rows and drops removed edges,
+     * so that the rows can be read directly.
+     */
+    public void compact() {
+        if (this.pendingCount == 0 && this.removed == 0) {
+            return;
+        }
+        int n = this.airportNames.length;
+        int live = this.offsets[n];
+        int total = live + this.pendingCount;
+
+        //counts the edges (old and pending) starting at each node
+        int[] start = new int[n + 1];
+        for (int v = 0; v < n; v++) {
+            start[v + 1] = this.offsets[v + 1] - this.offsets[v];
+        }
+        for (int i = 0; i < this.pendingCount; i++) {
+            start[this.pendingFrom[i] + 1]++;
+        }
+        for (int v = 0; v < n; v++) {
+            start[v + 1] += start[v];
+        }
+
+        //places each edge in its row, old edges first, keeping the order
+        //in which the pending edges were given
+        long[] keys = new long[total];
+        int[] fill = Arrays.copyOf(start, n);
+        for (int v = 0; v < n; v++) {
+            for (int e = this.offsets[v]; e < this.offsets[v + 1]; e++) {
+                keys[fill[v]++] = ((long) this.targets[e] << 32) | e;
+            }
+        }
+        for (int i = 0; i < this.pendingCount; i++) {
+            keys[fill[this.pendingFrom[i]]++] =
+                    ((long) this.pendingTo[i] << 32) | (live + i);
+        }
+
+        //sorts each row by target and folds repeated edges together
+        int[] newTargets = new int[total];
+        int[] newWeights = new int[total];
+        int[] newOffsets = new int[n + 1];
+        int count = 0;
+        for (int v = 0; v < n; v++) {
+            Arrays.sort(keys, start[v], start[v + 1]);
+            int i = start[v];
+            while (i < start[v + 1]) {
+                int w = (int) (keys[i] >>> 32);
+                int weight = 0;
+                for (; i < start[v + 1] && (int) (keys[i] >>> 32) == w; i++) {
+                    int index = (int) keys[i];
+                    if (index < live) {
+                        weight = this.weights[index];
+                    } else if (this.pendingIncrement[index - live]) {
+                        weight += this.pendingWeight[index - live];
+                    } else if (this.pendingWeight[index - live] != 0) {
+                        weight = this.pendingWeight[index - live];
+                    }
+                }
+                if (weight != 0) {
+                    newTargets[count] = w;
+                    newWeights[count] = weight;
+                    count++;
+                }
+            }
+            newOffsets[v + 1] = count;
+        }
+        this.offsets = newOffsets;
+        this.targets = Arrays.copyOf(newTargets, count);
+        this.weights = Arrays.copyOf(newWeights, count);
+        this.numEdges = count;
+        this.removed = 0;
+        this.pendingFrom = null;
+        this.pendingTo = null;
+        this.pendingWeight = null;
+        this.pendingIncrement = null;
+        this.pendingCount = 0;
+    }
+
+    /**Merges the pending edges, if there are any, so that the weights can
+     * be looked up. Removed edges are left in place.
+     */
+    private void mergePending() {
+        if (this.pendingCount != 0) {
+            this.compact();
+        }
+    }
+
+    /**Adds an edge to the pending list, merging the list into the rows
+     * once it outgrows them.
+     * @param v the x-coord
+     * @param w the y-coord
+     * @param weight the weight, or the amount to increment by
+     * @param increment whether to add the weight to the old weight
+     */
+    private void addPending(int v, int w, int weight, boolean increment) {
+        if (this.pendingFrom == null) {
+            this.pendingFrom = new int[MIN_PENDING];
+            this.pendingTo = new int[MIN_PENDING];
+            this.pendingWeight = new int[MIN_PENDING];
+            this.pendingIncrement = new boolean[MIN_PENDING];
+        } else if (this.pendingCount == this.pendingFrom.length) {
+            if (this.pendingCount >= 2 * this.targets.length) {
+                this.compact();
+                this.addPending(v, w, weight, increment);
+                return;
+            }
+            int size = 2 * this.pendingCount;
+            this.pendingFrom = Arrays.copyOf(this.pendingFrom, size);
+            this.pendingTo = Arrays.copyOf(this.pendingTo, size);
+            this.pendingWeight = Arrays.copyOf(this.pendingWeight, size);
+            this.pendingIncrement =
+                    Arrays.copyOf(this.pendingIncrement, size);
+        }
+        this.pendingFrom[this.pendingCount] = v;
+        this.pendingTo[this.pendingCount] = w;
+        this.pendingWeight[this.pendingCount] = weight;
+        this.pendingIncrement[this.pendingCount] = increment;
+        this.pendingCount++;
+    }
+
+    /**Finds an edge in the rows by binary search.
+     * @param v the x-coord
+     * @param w the y-coord
+     * @return the index of the edge, or -1 if it is not in the rows
+     */
+    private int findEdge(int v, int w) {
+        int edge = Arrays.binarySearch(this.targets, this.offsets[v],
+                this.offsets[v + 1], w);
+        return edge < 0 ? -1 : edge;
+    }
+
+    /**Sets the weight of an edge in the rows, keeping count of the edges
+     * which are removed (weight 0) or brought back.
+     * @param edge the index of the edge
+     * @param weight the new weight
+     */
+    private void setWeight(int edge, int weight) {
+        if (this.weights[edge] == 0 && weight != 0) {
+            this.numEdges++;
+            this.removed--;
+        } else if (this.weights[edge] != 0 && weight == 0) {
+            this.numEdges--;
+            this.removed++;
+        }
+        this.weights[edge] = weight;
+    }
+
+    /**Prints the graph to a file, in the same format as GraphMatrix.
+     * @param outputFile the file to print to
+     */
+    public void printGraphToFile(PrintWriter outputFile) {
+        this.compact();
+        int n = this.airportNames.length;
+        //4 spaces for each row and column; right justified
+        outputFile.print("    ");
+        for (int i = 0; i < n; i++) {
+            outputFile.printf("%-4s", this.airportNames[i]);
+        }
+        outputFile.println();
+        for (int i = 0; i < n; i++) {
+            outputFile.printf("%-4s", this.airportNames[i]);
+            int edge = this.offsets[i];
+            for (int j = 0; j < n; j++) {
+                int weight = 0;
+                if (edge < this.offsets[i + 1] && this.targets[edge] == j) {
+                    weight = this.weights[edge++];
+                }
+                outputFile.printf("%-4d", weight);
+            }
+            if (i != n - 1) {
+                outputFile.println();
+            }
+        }
+    }
+}
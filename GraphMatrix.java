@@ -102,10 +102,19 @@ public class GraphMatrix implements Graph {
      * @param w y-coord
      */
     public void incrementEdge(int v, int w) {
+        this.incrementEdge(v, w, 1);
+    }
+
+    /**Adds an amount to the weight of an edge.
+     * @param v x-coord
+     * @param w y-coord
+     * @param amount the amount to add
+     */
+    public void incrementEdge(int v, int w, int amount) {
         if (!this.hasEdge(v, w)) {
             this.numEdges++;
         }
-        this.matrix[v][w]++;
+        this.matrix[v][w] += amount;
     }
 
     /** Returns an array containing the indicies of the neighbors of v.
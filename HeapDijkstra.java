@@ -0,0 +1,68 @@
+import java.util.Arrays;
+
+/**Dijkstra's algorithm using an indexed heap to find the next-closest
+ * vertex, instead of the linear search in Dijkstra.minVertex. Each source
+ * costs O(E log V) rather than O(V^2).
+ *
+ * The heap hands out vertices at the same distance highest index first,
+ * as minVertex does, so the routes found are the same as those found by
+ * Dijkstra.dijkstra. An instance keeps its heap between sources, so it
+ * should only be used by one thread at a time.
+ *
+ * @author smsukardi
+ */
+public class HeapDijkstra {
+
+    /** The graph, in sparse form for O(degree) neighbor lookups. */
+    private GraphCSR graph;
+    /** Stores the amount of airports. */
+    private int amtOfAirports;
+    /** The vertices whose distance is not yet final. */
+    private IndexedHeap heap;
+    /** Stores whether the minimum path has been found yet. */
+    private boolean[] pathFound;
+
+    /**Constructor.
+     * @param yourGraph the graph to search, copied once if not a GraphCSR
+     */
+    public HeapDijkstra(Graph yourGraph) {
+        if (yourGraph instanceof GraphCSR) {
+            this.graph = (GraphCSR) yourGraph;
+        } else {
+            this.graph = GraphCSR.fromGraph(yourGraph);
+        }
+        this.graph.compact();
+        this.amtOfAirports = this.graph.nodeCount();
+        this.heap = new IndexedHeap(this.amtOfAirports);
+        this.pathFound = new boolean[this.amtOfAirports];
+    }
+
+    /**Implementation of Dijkstra's algorithm.
+     * @param sourceNode your source node
+     * @return The shortest path tree from the source airport.
+     */
+    public ShortestPathTree search(int sourceNode) {
+        ShortestPathTree tree = new ShortestPathTree(sourceNode,
+                new int[this.amtOfAirports]);
+        Arrays.fill(this.pathFound, false);
+
+        //Finds the shortest path by applying Dijkstra's algorithm
+        this.heap.clear();
+        this.heap.insertOrDecrease(sourceNode, 0);
+        while (!this.heap.isEmpty()) {
+            int u = this.heap.pollMin();
+            this.pathFound[u] = true;
+            for (int e = this.graph.firstEdge(u);
+                    e < this.graph.endEdge(u); e++) {
+                int v = this.graph.edgeTarget(e);
+                int distance = tree.getDistance(u) + this.graph.edgeWeight(e);
+                if (!this.pathFound[v] && distance < tree.getDistance(v)) {
+                    //updates distances and the path to be returned
+                    tree.setPath(v, u, distance);
+                    this.heap.insertOrDecrease(v, distance);
+                }
+            }
+        }
+        return tree;
+    }
+}
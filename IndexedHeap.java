@@ -0,0 +1,151 @@
+import java.util.Arrays;
+
+/**An indexed 4-ary min-heap of vertices keyed by distance, with
+ * decrease-key, kept in primitive arrays so that it can be reused for
+ * every source without allocating.
+ *
+ * Vertices with the same key come out highest index first, which is the
+ * order Dijkstra.minVertex picks them in.
+ *
+ * @author smsukardi
+ */
+public class IndexedHeap {
+
+    /** The number of children of each heap node. */
+    private static final int ARITY = 4;
+
+    /** The vertices, in heap order. */
+    private int[] heap;
+    /** The position of each vertex in the heap, or -1 if not in it. */
+    private int[] position;
+    /** The key of each vertex. */
+    private int[] keys;
+    /** The number of vertices in the heap. */
+    private int size;
+
+    /**Constructor.
+     * @param capacity the amount of vertices
+     */
+    public IndexedHeap(int capacity) {
+        this.heap = new int[capacity];
+        this.position = new int[capacity];
+        this.keys = new int[capacity];
+        Arrays.fill(this.position, -1);
+    }
+
+    /**Removes every vertex from the heap.
+     */
+    public void clear() {
+        for (int i = 0; i < this.size; i++) {
+            this.position[this.heap[i]] = -1;
+        }
+        this.size = 0;
+    }
+
+    /**Returns whether the heap is empty.
+     * @return true if there are no vertices in the heap
+     */
+    public boolean isEmpty() {
+        return this.size == 0;
+    }
+
+    /**Returns whether a vertex is in the heap.
+     * @param v the vertex
+     * @return true if v is in the heap
+     */
+    public boolean contains(int v) {
+        return this.position[v] >= 0;
+    }
+
+    /**Adds a vertex to the heap, or lowers its key if it is already in it.
+     * @param v the vertex
+     * @param key the new key, no greater than its current key
+     */
+    public void insertOrDecrease(int v, int key) {
+        if (this.position[v] < 0) {
+            this.heap[this.size] = v;
+            this.position[v] = this.size;
+            this.size++;
+        }
+        this.keys[v] = key;
+        this.siftUp(this.position[v]);
+    }
+
+    /**Returns the smallest key in the heap, which must not be empty.
+     * @return the key of the vertex pollMin would return
+     */
+    public int minKey() {
+        return this.keys[this.heap[0]];
+    }
+
+    /**Removes and returns the vertex with the smallest key.
+     * @return the vertex with the smallest key
+     */
+    public int pollMin() {
+        int min = this.heap[0];
+        this.position[min] = -1;
+        this.size--;
+        if (this.size > 0) {
+            this.heap[0] = this.heap[this.size];
+            this.position[this.heap[0]] = 0;
+            this.siftDown(0);
+        }
+        return min;
+    }
+
+    /**Returns whether vertex a comes out of the heap before vertex b.
+     * @param a the first vertex
+     * @param b the second vertex
+     * @return true if a has a smaller key, or the same key and higher index
+     */
+    private boolean before(int a, int b) {
+        return this.keys[a] < this.keys[b]
+                || (this.keys[a] == this.keys[b] && a > b);
+    }
+
+    /**Moves the vertex at index i up until its parent comes before it.
+     * @param i the index in the heap
+     */
+    private void siftUp(int i) {
+        int v = this.heap[i];
+        while (i > 0) {
+            int parent = (i - 1) / ARITY;
+            if (!this.before(v, this.heap[parent])) {
+                break;
+            }
+            this.heap[i] = this.heap[parent];
+            this.position[this.heap[i]] = i;
+            i = parent;
+        }
+        this.heap[i] = v;
+        this.position[v] = i;
+    }
+
+    /**Moves the vertex at index i down until it comes before its children.
+     * @param i the index in the heap
+     */
+    private void siftDown(int i) {
+        int v = this.heap[i];
+        while (true) {
+            int first = i * ARITY + 1;
+            if (first >= this.size) {
+                break;
+            }
+            int best = first;
+            int last = Math.min(first + ARITY, this.size);
+            for (int c = first + 1; c < last; c++) {
+                if (this.before(this.heap[c], this.heap[best])) {
+                    best = c;
+                }
+            }
+            if (!this.before(this.heap[best], v)) {
+                break;
+            }
+            this.heap[i] = this.heap[best];
+            this.position[this.heap[i]] = i;
+            i = best;
+        }
+        this.heap[i] = v;
+        this.position[v] = i;
+    }
+}
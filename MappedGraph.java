@@ -0,0 +1,453 @@
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+
+/**Graph adjacency matrix implementation kept in a memory-mapped file
+ * instead of on the heap, for networks whose matrix is too big for the
+ * heap, or to hand a matrix from one program to the next.
+ *
+ * It behaves as a GraphMatrix. Each weight takes 2 bytes if the graph is
+ * made for weights of at most 65535, and 4 otherwise. A writable graph
+ * whose weights outgrow 2 bytes is widened to 4 in place, so a graph of
+ * counts can start compact without knowing how high they will go. The
+ * file starts with
+ * a header (the magic no., the no. of airports, the bytes per weight and
+ * the no. of edges), followed by the matrix row by row and then the
+ * airport names. A file can only be mapped up to 2GB at a time, so the
+ * matrix is mapped in chunks of whole rows.
+ *
+ * The header and names are written by close(), after which open() maps
+ * the file again without reading the matrix. A graph opened without write
+ * access is mapped copy-on-write: it can still be changed, but the changes
+ * are never written to the file.
+ *
+ * @author smsukardi
+ */
+public class MappedGraph implements Graph, Closeable {
+
+    /** The first int of a mapped graph's file. */
+    public static final int MAGIC = 0x46524d31;
+    /** The largest weight a 2-byte cell can hold. */
+    public static final int MAX_COMPACT_WEIGHT = 0xffff;
+    /** The no. of bytes before the matrix. */
+    private static final int HEADER_SIZE = 16;
+    /** The most bytes mapped in one chunk. */
+    private static final long CHUNK_SIZE = 1L << 30;
+
+    /** The file the graph is kept in. */
+    private String fileName;
+    /** Whether changes are written to the file. */
+    private boolean writable;
+    /** The no. of bytes of each weight, 2 or 4. */
+    private int cellBytes;
+    /** The no. of bytes of each row. */
+    private int rowBytes;
+    /** The no. of rows in each chunk. */
+    private int rowsPerChunk;
+    /** The chunks of the matrix. */
+    private MappedByteBuffer[] chunks;
+    /** The values of the nodes. */
+    private String[] airportNames;
+    /** The number of edges in the graph. */
+    private int numEdges;
+
+    /**Constructor for a graph starting with 2-byte weights, widened
+     * once a weight does not fit. The file is made by init().
+     * @param fileName the file to keep the graph in
+     */
+    public MappedGraph(String fileName) {
+        this(fileName, 0);
+    }
+
+    /**Constructor. The file is made by init().
+     * @param fileName the file to keep the graph in
+     * @param maxWeight the largest weight the graph is expected to hold
+     */
+    public MappedGraph(String fileName, long maxWeight) {
+        this.fileName = fileName;
+        this.writable = true;
+        if (maxWeight <= MAX_COMPACT_WEIGHT) {
+            this.cellBytes = 2;
+        } else {
+            this.cellBytes = 4;
+        }
+        this.airportNames = new String[0];
+    }
+
+    /**Maps a graph saved by close() again.
+     * @param fileName the file
+     * @param writable true to write changes to the file, false to keep
+     * them in memory only
+     * @return the graph
+     * @throws IOException if the file cannot be read or is not a graph
+     */
+    public static MappedGraph open(String fileName, boolean writable)
+            throws IOException {
+        MappedGraph graph = new MappedGraph(fileName, 0);
+        graph.writable = writable;
+        //a copy-on-write mapping also needs the file opened for writing
+        RandomAccessFile file = new RandomAccessFile(fileName, "rw");
+        try {
+            if (file.length() < HEADER_SIZE || file.readInt() != MAGIC) {
+                throw new IOException(fileName + " is not a mapped graph.");
+            }
+            int n = file.readInt();
+            graph.cellBytes = file.readInt();
+            graph.numEdges = file.readInt();
+            long namesStart = HEADER_SIZE + (long) n * n * graph.cellBytes;
+            if (file.length() <= namesStart && n > 0) {
+                throw new IOException(fileName + " was not closed.");
+            }
+            //reads the names in one go from after the matrix
+            byte[] names = new byte[(int) (file.length() - namesStart)];
+            file.seek(namesStart);
+            file.readFully(names);
+            DataInputStream input = new DataInputStream(
+                    new ByteArrayInputStream(names));
+            graph.airportNames = new String[n];
+            for (int i = 0; i < n; i++) {
+                graph.airportNames[i] = input.readUTF();
+            }
+            graph.map(file.getChannel(), n);
+        } finally {
+            file.close();
+        }
+        return graph;
+    }
+
+    /**Returns whether a file is a graph saved by MappedGraph.
+     * @param fileName the file
+     * @return true if it starts with the magic no.
+     * @throws IOException if the file cannot be read
+     */
+    public static boolean isMappedGraph(String fileName) throws IOException {
+        DataInputStream input = new DataInputStream(
+                new FileInputStream(fileName));
+        try {
+            return input.available() >= HEADER_SIZE
+                    && input.readInt() == MAGIC;
+        } finally {
+            input.close();
+        }
+    }
+
+    /**Initializes the graph with n vertices, making a file of n by n
+     * zero weights. The file is sparse, so only the rows written to take
+     * up space on the disk.
+     * @param n the no. of vertices.
+     */
+    public void init(int n) {
+        this.airportNames = new String[n];
+        this.numEdges = 0;
+        this.writable = true;
+        try {
+            RandomAccessFile file = new RandomAccessFile(this.fileName,
+                    "rw");
+            try {
+                file.setLength(0);
+                file.setLength(HEADER_SIZE
+                        + (long) n * n * this.cellBytes);
+                this.map(file.getChannel(), n);
+            } finally {
+                file.close();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**Maps the matrix in chunks of whole rows. The mappings stay valid
+     * once the file is closed.
+     * @param channel the file
+     * @param n the no. of vertices
+     * @throws IOException if the file cannot be mapped
+     */
+    private void map(FileChannel channel, int n) throws IOException {
+        this.rowBytes = n * this.cellBytes;
+        this.rowsPerChunk = (int) Math.max(1,
+                CHUNK_SIZE / Math.max(1, this.rowBytes));
+        int chunkCount = (n + this.rowsPerChunk - 1) / this.rowsPerChunk;
+        this.chunks = new MappedByteBuffer[chunkCount];
+        FileChannel.MapMode mode = FileChannel.MapMode.READ_WRITE;
+        if (!this.writable) {
+            mode = FileChannel.MapMode.PRIVATE;
+        }
+        for (int i = 0; i < chunkCount; i++) {
+            int rows = Math.min(this.rowsPerChunk,
+                    n - i * this.rowsPerChunk);
+            this.chunks[i] = channel.map(mode, HEADER_SIZE
+                    + (long) i * this.rowsPerChunk * this.rowBytes,
+                    (long) rows * this.rowBytes);
+            this.chunks[i].order(ByteOrder.LITTLE_ENDIAN);
+        }
+    }
+
+    /**Writes the header and the names and flushes the matrix to the file,
+     * if it is writable, and unmaps the graph.
+     * @throws IOException if the file cannot be written
+     */
+    public void close() throws IOException {
+        if (this.chunks == null) {
+            return;
+        }
+        if (this.writable) {
+            for (MappedByteBuffer chunk : this.chunks) {
+                chunk.force();
+            }
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream names = new DataOutputStream(bytes);
+            for (String name : this.airportNames) {
+                names.writeUTF(name == null ? "" : name);
+            }
+            int n = this.airportNames.length;
+            RandomAccessFile file = new RandomAccessFile(this.fileName,
+                    "rw");
+            try {
+                file.writeInt(MAGIC);
+                file.writeInt(n);
+                file.writeInt(this.cellBytes);
+                file.writeInt(this.numEdges);
+                long namesStart = HEADER_SIZE
+                        + (long) n * n * this.cellBytes;
+                file.seek(namesStart);
+                file.write(bytes.toByteArray());
+                file.setLength(namesStart + bytes.size());
+            } finally {
+                file.close();
+            }
+        }
+        //the mappings are released once the buffers are collected
+        this.chunks = null;
+    }
+
+    /** Gets the no. of bytes each weight takes.
+     * @return 2 or 4
+     */
+    public int getCellBytes() {
+        return this.cellBytes;
+    }
+
+    /** Returns the number of vertices.
+     * @return the number of vertices
+     */
+    public int nodeCount() {
+        return this.airportNames.length;
+    }
+
+    /** Return the current number of edges.
+     * @return the number of edges
+     */
+    public int edgeCount() {
+        return this.numEdges;
+    }
+
+    /** Get the value of node with index v.
+     * @param v the node at which to get the value at
+     * @return the value of the node
+     */
+    public String getValue(int v) {
+        return this.airportNames[v];
+    }
+
+    /** Set the value of node with index v.
+     * @param v the index to set
+     * @param val the value to set it to
+     */
+    public void setValue(int v, String val) {
+        this.airportNames[v] = val;
+    }
+
+    /** Adds a new edge from node v to node w with weight wgt.
+     * @param v the x-coord
+     * @param w the y-coord
+     * @param weight the weight given to the edge
+     */
+    public void addEdge(int v, int w, int weight) {
+        if (weight == 0) {
+            return; // Can't store weight of 0
+        }
+        this.setWeight(v, w, weight);
+        this.numEdges++;
+    }
+
+    /** Get the weight value for an edge.
+     * @param v the x-coord
+     * @param w the y-coord
+     * @return the weight
+     */
+    public int getWeight(int v, int w) {
+        ByteBuffer chunk = this.chunks[v / this.rowsPerChunk];
+        int index = (v % this.rowsPerChunk) * this.rowBytes
+                + w * this.cellBytes;
+        if (this.cellBytes == 2) {
+            return chunk.getChar(index);
+        }
+        return chunk.getInt(index);
+    }
+
+    /**Stores the weight of an edge.
+     * @param v the x-coord
+     * @param w the y-coord
+     * @param weight the weight
+     * @throws IllegalArgumentException if the weight does not fit
+     */
+    private void setWeight(int v, int w, long weight) {
+        if (this.cellBytes == 2 && (weight < 0 || weight > MAX_COMPACT_WEIGHT)
+                && this.writable && weight >= Integer.MIN_VALUE
+                && weight <= Integer.MAX_VALUE) {
+            this.widen();
+        }
+        ByteBuffer chunk = this.chunks[v / this.rowsPerChunk];
+        int index = (v % this.rowsPerChunk) * this.rowBytes
+                + w * this.cellBytes;
+        if (this.cellBytes == 2) {
+            if (weight < 0 || weight > MAX_COMPACT_WEIGHT) {
+                throw new IllegalArgumentException("Weight " + weight
+                        + " does not fit in " + this.fileName + ".");
+            }
+            chunk.putChar(index, (char) weight);
+        } else {
+            if (weight < Integer.MIN_VALUE || weight > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("Weight " + weight
+                        + " does not fit in " + this.fileName + ".");
+            }
+            chunk.putInt(index, (int) weight);
+        }
+    }
+
+    /**Widens every weight from 2 bytes to 4, moving the matrix within
+     * the file. Each row and each weight only moves towards the end of
+     * the file, so going backwards from the last weight every weight is
+     * read before anything is written over it. Cells which are 0 both
+     * before and after are left alone, so the file stays sparse.
+     */
+    private void widen() {
+        int n = this.airportNames.length;
+        MappedByteBuffer[] oldChunks = this.chunks;
+        int oldRowsPerChunk = this.rowsPerChunk;
+        int oldRowBytes = this.rowBytes;
+        try {
+            RandomAccessFile file = new RandomAccessFile(this.fileName,
+                    "rw");
+            try {
+                file.setLength(HEADER_SIZE + (long) n * n * 4);
+                this.cellBytes = 4;
+                this.map(file.getChannel(), n);
+            } finally {
+                file.close();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        for (int v = n - 1; v >= 0; v--) {
+            ByteBuffer from = oldChunks[v / oldRowsPerChunk];
+            int oldRow = (v % oldRowsPerChunk) * oldRowBytes;
+            ByteBuffer to = this.chunks[v / this.rowsPerChunk];
+            int row = (v % this.rowsPerChunk) * this.rowBytes;
+            for (int w = n - 1; w >= 0; w--) {
+                int weight = from.getChar(oldRow + 2 * w);
+                if (weight != 0 || to.getInt(row + 4 * w) != 0) {
+                    to.putInt(row + 4 * w, weight);
+                }
+            }
+        }
+    }
+
+    /** Removes the edge from the graph.
+     * @param v the x-coord
+     * @param w the y-coord
+     */
+    public void removeEdge(int v, int w) {
+        this.setWeight(v, w, 0);
+        this.numEdges--;
+    }
+
+    /** Returns true iff the graph has the edge.
+     * @param v the x-coord
+     * @param w the y-coord
+     * @return if it has an edge
+     */
+    public boolean hasEdge(int v, int w) {
+        return this.getWeight(v, w) != 0;
+    }
+
+    /**Increments the edge by 1.
+     * @param v x-coord
+     * @param w y-coord
+     */
+    public void incrementEdge(int v, int w) {
+        this.incrementEdge(v, w, 1);
+    }
+
+    /**Adds an amount to the weight of an edge.
+     * @param v x-coord
+     * @param w y-coord
+     * @param amount the amount to add
+     */
+    public void incrementEdge(int v, int w, int amount) {
+        int weight = this.getWeight(v, w);
+        if (weight == 0) {
+            this.numEdges++;
+        }
+        this.setWeight(v, w, (long) weight + amount);
+    }
+
+    /** Returns an array containing the indicies of the neighbors of v.
+     * @param v the coordinate to find neighbors of
+     * @return an integer array of neighbors
+     */
+    public int[] neighbors(int v) {
+        int n = this.airportNames.length;
+        //finds the row once rather than for every cell
+        ByteBuffer chunk = this.chunks[v / this.rowsPerChunk];
+        int row = (v % this.rowsPerChunk) * this.rowBytes;
+        int[] temp = new int[n];
+        int count = 0;
+        for (int i = 0; i < n; i++) {
+            int weight;
+            if (this.cellBytes == 2) {
+                weight = chunk.getChar(row + 2 * i);
+            } else {
+                weight = chunk.getInt(row + 4 * i);
+            }
+            if (weight != 0) {
+                temp[count++] = i;
+            }
+        }
+        return Arrays.copyOf(temp, count);
+    }
+
+    /**Prints the graph to a file, as GraphMatrix does.
+     * @param outputFile the file to print to
+     */
+    public void printGraphToFile(PrintWriter outputFile) {
+        int n = this.airportNames.length;
+        //4 spaces for each row and column; right justified
+        outputFile.print("    ");
+        for (int i = 0; i < n; i++) {
+            outputFile.printf("%-4s", this.airportNames[i]);
+        }
+        outputFile.println();
+        for (int i = 0; i < n; i++) {
+            outputFile.printf("%-4s", this.airportNames[i]);
+            for (int j = 0; j < n; j++) {
+                outputFile.printf("%-4d", this.getWeight(i, j));
+            }
+            if (i != n - 1) {
+                outputFile.println();
+            }
+        }
+    }
+}
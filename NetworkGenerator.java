@@ -0,0 +1,151 @@
+import java.io.FileNotFoundException;
+import java.io.PrintWriter;
+import java.util.Random;
+
+/**Generates synthetic airline networks in the same format as
+ * sampleInput.txt, for benchmarking on realistic sizes.
+ *
+ * Airports are added one at a time and each new airport gets flights to
+ * a few existing airports, picked with probability proportional to how
+ * many flights they already have (preferential attachment). This gives a
+ * scale-free, hub-and-spoke network: a few hubs with many flights and
+ * many small airports with only a few. Airports are placed at random on
+ * the globe and each flight's mileage is the great-circle distance.
+ *
+ * @author smsukardi
+ */
+public final class NetworkGenerator {
+
+    /** The letters used in generated airport codes. */
+    private static final String LETTERS =
+            "0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz";
+
+    /**Empty constructor.
+     */
+    private NetworkGenerator() {
+    }
+
+    /**Main method.
+     *
+     * @param args the no. of airports, the no. of flights added with each
+     * airport, the random seed, the file to write and optionally a file to
+     * write the airports' coordinates to
+     * @throws FileNotFoundException if a file cannot be written
+     */
+    public static void main(String[] args) throws FileNotFoundException {
+        if (args.length != 4 && args.length != 5) {
+            System.out.println("Please enter the no. of airports, the no. "
+                    + "of flights per airport, a seed and an output file.");
+            return;
+        }
+        PrintWriter output = new PrintWriter(args[3]);
+        PrintWriter coordinates = null;
+        if (args.length == 5) {
+            coordinates = new PrintWriter(args[4]);
+        }
+        generate(Integer.parseInt(args[0]), Integer.parseInt(args[1]),
+                Long.parseLong(args[2]), output, coordinates);
+        output.close();
+        if (coordinates != null) {
+            coordinates.close();
+        }
+    }
+
+    /**Returns the code of an airport.
+     *
+     * @param airport the index of the airport
+     * @return a 3-letter code, unique for up to 238328 airports
+     */
+    public static String code(int airport) {
+        int base = LETTERS.length();
+        return "" + LETTERS.charAt(airport / (base * base) % base)
+                + LETTERS.charAt(airport / base % base)
+                + LETTERS.charAt(airport % base);
+    }
+
+    /**Writes a network, one flight per line in the form "BWI PHL 80".
+     *
+     * @param airports the no. of airports
+     * @param density the no. of flights added with each new airport
+     * @param seed the random seed; the same seed gives the same network
+     * @param output the file to write to
+     */
+    public static void generate(int airports, int density, long seed,
+            PrintWriter output) {
+        generate(airports, density, seed, output, null);
+    }
+
+    /**Writes a network, and the position of each airport in the form
+     * "BWI 39.1754 -76.6683" as AirportCoordinates reads it.
+     *
+     * @param airports the no. of airports
+     * @param density the no. of flights added with each new airport
+     * @param seed the random seed; the same seed gives the same network
+     * @param output the file to write the flights to
+     * @param coordinates the file to write the positions to, or null
+     */
+    public static void generate(int airports, int density, long seed,
+            PrintWriter output, PrintWriter coordinates) {
+        Random random = new Random(seed);
+        //places the airports at random on the globe
+        double[] latitude = new double[airports];
+        double[] longitude = new double[airports];
+        for (int i = 0; i < airports; i++) {
+            latitude[i] = Math.asin(2 * random.nextDouble() - 1);
+            longitude[i] = 2 * Math.PI * random.nextDouble();
+            if (coordinates != null) {
+                coordinates.println(code(i) + " "
+                        + Math.toDegrees(latitude[i]) + " "
+                        + Math.toDegrees(longitude[i]));
+            }
+        }
+
+        //each airport appears in ends once per flight it has, so picking
+        //a random entry picks an airport in proportion to its flights
+        int[] ends = new int[2 * airports * Math.max(density, 1)];
+        int size = 0;
+        int[] picked = new int[density];
+        for (int v = 1; v < airports; v++) {
+            int flights = Math.min(density, v);
+            for (int f = 0; f < flights; f++) {
+                int w;
+                boolean repeat;
+                do {
+                    if (size == 0) {
+                        w = random.nextInt(v);
+                    } else {
+                        w = ends[random.nextInt(size)];
+                    }
+                    repeat = false;
+                    for (int g = 0; g < f; g++) {
+                        repeat |= picked[g] == w;
+                    }
+                } while (repeat);
+                picked[f] = w;
+                output.println(code(v) + " " + code(w) + " " + miles(
+                        latitude[v], longitude[v], latitude[w], longitude[w]));
+            }
+            //v only becomes a candidate once its own flights are picked,
+            //so it never gets a flight to itself
+            for (int f = 0; f < flights; f++) {
+                ends[size++] = v;
+                ends[size++] = picked[f];
+            }
+        }
+    }
+
+    /**Returns the great-circle distance between two points.
+     *
+     * @param lat1 the latitude of the first point, in radians
+     * @param lon1 the longitude of the first point, in radians
+     * @param lat2 the latitude of the second point, in radians
+     * @param lon2 the longitude of the second point, in radians
+     * @return the distance in whole miles, at least 1
+     */
+    private static int miles(double lat1, double lon1, double lat2,
+            double lon2) {
+        double distance = AirportCoordinates.greatCircle(lat1, lon1, lat2,
+                lon2);
+        return Math.max(1, (int) Math.round(distance));
+    }
+}
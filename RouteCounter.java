@@ -0,0 +1,514 @@
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**Counts the segments flown on the routes in a routes.txt on several
+ * threads, reading the file only once.
+ *
+ * The file is split into chunks which each end at the end of a line, and
+ * each chunk is mapped into memory by the thread that reads it. Every
+ * thread reads the airport names straight from the bytes into its own
+ * table of names, and counts the segments in its own SegmentCounter by
+ * the numbers of the names. Nothing is shared until every chunk is read,
+ * when the counts of the threads are added up.
+ *
+ * The airports are numbered as FrequencyGenerator numbers them: by the
+ * order of the routes from the first source, which are the lines before
+ * the first blank line. Each chunk keeps the destinations of its lines
+ * before its own first blank line, and these are joined in file order up
+ * to the first chunk that has one.
+ *
+ * @author smsukardi
+ */
+public class RouteCounter {
+
+    /** The most bytes of a routes.txt mapped by one chunk. */
+    private static final long MAX_CHUNK = 256L << 20;
+    /** The fewest bytes worth giving a chunk of its own. */
+    private static final long MIN_CHUNK = 1L << 20;
+    /** The no. of chunks each thread gets, so that the threads finish
+     * close together. */
+    private static final int CHUNKS_PER_THREAD = 4;
+    /** The size of the window a chunk is read through. */
+    private static final int WINDOW_SIZE = 1 << 16;
+
+    /** The index of each airport, as FrequencyGenerator has it. */
+    private HashMap<String, Integer> airports;
+    /** Stores the amount of airports. */
+    private int amtOfAirports;
+    /** The no. of routes flying each segment. */
+    private SegmentCounter counts;
+
+    /**Constructor.
+     * @param airports the index of each airport
+     * @param amtOfAirports the amount of airports
+     * @param counts the no. of routes flying each segment, by index
+     */
+    private RouteCounter(HashMap<String, Integer> airports,
+            int amtOfAirports, SegmentCounter counts) {
+        this.airports = airports;
+        this.amtOfAirports = amtOfAirports;
+        this.counts = counts;
+    }
+
+    /**Counts the segments flown on the routes in a routes.txt.
+     * @param fileName the routes.txt to read
+     * @param parallelism the no. of threads to use
+     * @return the counts
+     * @throws IOException if the file cannot be read, or names an airport
+     * which is not a destination of the first source
+     */
+    public static RouteCounter count(String fileName, int parallelism)
+            throws IOException {
+        RandomAccessFile file = new RandomAccessFile(fileName, "r");
+        try {
+            FileChannel channel = file.getChannel();
+            ArrayList<Chunk> chunks = split(channel, parallelism);
+            ArrayList<Tally> tallies = new ArrayList<Tally>();
+            if (parallelism <= 1) {
+                Tally tally = new Tally();
+                tallies.add(tally);
+                for (Chunk chunk : chunks) {
+                    tally.read(channel, chunk);
+                }
+            } else {
+                readInParallel(channel, chunks, tallies, parallelism);
+            }
+            return merge(chunks, tallies);
+        } finally {
+            file.close();
+        }
+    }
+
+    /**Splits a file into chunks which end at the ends of lines.
+     * @param channel the file
+     * @param parallelism the no. of threads the chunks are shared out to
+     * @return the chunks, in file order
+     * @throws IOException if the file cannot be read, or a line does not
+     * fit in a mapping
+     */
+    private static ArrayList<Chunk> split(FileChannel channel,
+            int parallelism) throws IOException {
+        long size = channel.size();
+        long target = size / ((long) Math.max(1, parallelism)
+                * CHUNKS_PER_THREAD);
+        target = Math.max(MIN_CHUNK, Math.min(MAX_CHUNK, target));
+        ArrayList<Chunk> chunks = new ArrayList<Chunk>();
+        long start = 0;
+        while (start < size) {
+            long end = lineStart(channel, Math.min(size, start + target));
+            if (end - start > Integer.MAX_VALUE) {
+                throw new IOException("A line of the routes is too long.");
+            }
+            chunks.add(new Chunk(start, end));
+            start = end;
+        }
+        return chunks;
+    }
+
+    /**Finds the start of the first line at or after a position.
+     * @param channel the file
+     * @param position the position
+     * @return the position after the next line break before it, or the
+     * position itself if it starts a line, or the end of the file
+     * @throws IOException if the file cannot be read
+     */
+    private static long lineStart(FileChannel channel, long position)
+            throws IOException {
+        long size = channel.size();
+        if (position >= size) {
+            return size;
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(WINDOW_SIZE);
+        long at = position - 1;
+        while (at < size) {
+            buffer.clear();
+            int read = channel.read(buffer, at);
+            if (read <= 0) {
+                break;
+            }
+            for (int i = 0; i < read; i++) {
+                if (buffer.get(i) == '\n') {
+                    return at + i + 1;
+                }
+            }
+            at += read;
+        }
+        return size;
+    }
+
+    /**Reads the chunks on a fork-join pool, each thread into its own
+     * tally.
+     * @param channel the file
+     * @param chunks the chunks
+     * @param tallies receives the tally of every thread used
+     * @param parallelism the no. of threads to use
+     * @throws IOException if the file cannot be read
+     */
+    private static void readInParallel(final FileChannel channel,
+            ArrayList<Chunk> chunks, final ArrayList<Tally> tallies,
+            int parallelism) throws IOException {
+        final ThreadLocal<Tally> local = ThreadLocal.withInitial(() -> {
+            Tally tally = new Tally();
+            synchronized (tallies) {
+                tallies.add(tally);
+            }
+            return tally;
+        });
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            ArrayList<ForkJoinTask<?>> running =
+                    new ArrayList<ForkJoinTask<?>>(chunks.size());
+            for (final Chunk chunk : chunks) {
+                running.add(pool.submit(() -> {
+                    local.get().read(channel, chunk);
+                    return null;
+                }));
+            }
+            for (ForkJoinTask<?> task : running) {
+                try {
+                    task.join();
+                } catch (RuntimeException e) {
+                    if (e.getCause() instanceof IOException) {
+                        throw (IOException) e.getCause();
+                    }
+                    throw e;
+                }
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /**Numbers the airports and adds up the counts of every thread.
+     * @param chunks the chunks, read
+     * @param tallies the tallies they were read into
+     * @return the counts
+     * @throws IOException if an airport is not a destination of the first
+     * source
+     */
+    private static RouteCounter merge(ArrayList<Chunk> chunks,
+            ArrayList<Tally> tallies) throws IOException {
+        HashMap<String, Integer> airports = new HashMap<String, Integer>();
+        int amtOfAirports = 0;
+        for (Chunk chunk : chunks) {
+            for (int i = 0; i < chunk.leadingCount; i++) {
+                airports.put(chunk.tally.name(chunk.leading[i]),
+                        amtOfAirports);
+                amtOfAirports++;
+            }
+            if (chunk.blank) {
+                break;
+            }
+        }
+
+        SegmentCounter total = new SegmentCounter();
+        total.init(amtOfAirports);
+        for (Tally tally : tallies) {
+            int[] index = new int[tally.nameCount];
+            for (int id = 0; id < tally.nameCount; id++) {
+                Integer v = airports.get(tally.name(id));
+                if (v == null) {
+                    throw new IOException("Airport " + tally.name(id)
+                            + " is not a destination of the first source.");
+                }
+                index[id] = v;
+            }
+            SegmentCounter counts = tally.counts;
+            for (long key : counts.segments()) {
+                int from = (int) (key >>> 32);
+                int to = (int) key;
+                total.incrementEdge(index[from], index[to],
+                        counts.getWeight(from, to));
+            }
+        }
+        return new RouteCounter(airports, amtOfAirports, total);
+    }
+
+    /** Gets the no. of airports.
+     * @return the no. of airports
+     */
+    public int nodeCount() {
+        return this.amtOfAirports;
+    }
+
+    /**Sets up a graph with the airports and, as the weight of each flight,
+     * the no. of routes flying it.
+     * @param yourGraph the graph, not yet set up
+     */
+    public void fill(Graph yourGraph) {
+        yourGraph.init(this.amtOfAirports);
+        for (String key : this.airports.keySet()) {
+            yourGraph.setValue(this.airports.get(key), key);
+        }
+        for (long key : this.counts.segments()) {
+            int from = (int) (key >>> 32);
+            int to = (int) key;
+            yourGraph.incrementEdge(from, to,
+                    this.counts.getWeight(from, to));
+        }
+    }
+
+    /** A line-aligned part of a routes.txt and what was found in it. */
+    private static class Chunk {
+
+        /** The offset of its first byte. */
+        private long start;
+        /** The offset after its last byte. */
+        private long end;
+        /** The tally it was read into. */
+        private Tally tally;
+        /** The destinations, by the tally's name numbers, of its lines
+         * before its first blank line. */
+        private int[] leading = new int[16];
+        /** The no. of those. */
+        private int leadingCount;
+        /** Whether it has a blank line. */
+        private boolean blank;
+
+        /**Constructor.
+         * @param start the offset of its first byte
+         * @param end the offset after its last byte
+         */
+        Chunk(long start, long end) {
+            this.start = start;
+            this.end = end;
+        }
+
+        /**Adds a destination of a line before the first blank line.
+         * @param id the destination
+         */
+        void addLeading(int id) {
+            if (this.leadingCount == this.leading.length) {
+                this.leading = Arrays.copyOf(this.leading,
+                        2 * this.leading.length);
+            }
+            this.leading[this.leadingCount++] = id;
+        }
+    }
+
+    /** One thread's names and counts. */
+    private static class Tally {
+
+        /** The slots of the name table, each the no. of a name plus 1, or
+         * 0 if empty. */
+        private int[] slots = new int[1024];
+        /** The bytes of every name, one after another. */
+        private byte[] bytes = new byte[4096];
+        /** The no. of bytes used. */
+        private int byteCount;
+        /** The offset of each name in bytes, and where the next one goes. */
+        private int[] offsets = new int[513];
+        /** The hash of each name. */
+        private int[] hashes = new int[512];
+        /** The no. of names. */
+        private int nameCount;
+        /** The no. of routes flying each segment, by name number. */
+        private SegmentCounter counts = new SegmentCounter();
+        /** The window a chunk is read through. */
+        private byte[] window = new byte[WINDOW_SIZE];
+
+        /**Constructor. Makes an empty tally.
+         */
+        Tally() {
+            //the names are numbered as they are found, so the counter
+            //needs no airports of its own
+            this.counts.init(0);
+        }
+
+        /**Reads a chunk of the file.
+         * @param channel the file
+         * @param chunk the chunk
+         * @throws IOException if the file cannot be read
+         */
+        void read(FileChannel channel, Chunk chunk) throws IOException {
+            chunk.tally = this;
+            MappedByteBuffer buffer = channel.map(
+                    FileChannel.MapMode.READ_ONLY, chunk.start,
+                    chunk.end - chunk.start);
+            byte[] data = this.window;
+            int limit = 0;
+            int pos = 0;
+            while (true) {
+                int lineEnd = pos;
+                while (lineEnd < limit && data[lineEnd] != '\n') {
+                    lineEnd++;
+                }
+                if (lineEnd < limit) {
+                    this.line(data, pos, lineEnd, chunk);
+                    pos = lineEnd + 1;
+                    continue;
+                }
+                if (!buffer.hasRemaining()) {
+                    //the last line of the file may have no line break
+                    if (pos < limit) {
+                        this.line(data, pos, limit, chunk);
+                    }
+                    break;
+                }
+                //moves the start of the line to the front of the window,
+                //making room for a line longer than it
+                limit -= pos;
+                System.arraycopy(data, pos, data, 0, limit);
+                pos = 0;
+                if (limit == data.length) {
+                    data = Arrays.copyOf(data, 2 * data.length);
+                    this.window = data;
+                }
+                int more = Math.min(data.length - limit,
+                        buffer.remaining());
+                buffer.get(data, limit, more);
+                limit += more;
+            }
+        }
+
+        /**Counts the segments of one line.
+         * @param data the bytes
+         * @param start the offset of the line
+         * @param end the offset of the line break after it
+         * @param chunk the chunk the line is in
+         */
+        private void line(byte[] data, int start, int end, Chunk chunk) {
+            if (end > start && data[end - 1] == '\r') {
+                end--;
+            }
+            if (end == start) {
+                chunk.blank = true;
+                return;
+            }
+            int from = -1;
+            int nameStart = start;
+            for (int i = start; i < end - 1; i++) {
+                if (data[i] == '-' && data[i + 1] == '>') {
+                    int to = this.intern(data, nameStart, i);
+                    if (from >= 0) {
+                        this.counts.incrementEdge(from, to);
+                    }
+                    from = to;
+                    i++;
+                    nameStart = i + 1;
+                }
+            }
+            int to = this.intern(data, nameStart, end);
+            if (from >= 0) {
+                this.counts.incrementEdge(from, to);
+            }
+            if (!chunk.blank) {
+                chunk.addLeading(to);
+            }
+        }
+
+        /**Finds the no. of a name, adding it if it is new.
+         * @param data the bytes
+         * @param start the offset of the name
+         * @param end the offset after it
+         * @return its no.
+         */
+        private int intern(byte[] data, int start, int end) {
+            //FNV-1a, since short codes such as "0Bl" and "0C-" differ by
+            //too little for 31 * hash + byte
+            int hash = 0x811C9DC5;
+            for (int i = start; i < end; i++) {
+                hash = (hash ^ data[i]) * 0x01000193;
+            }
+            int mask = this.slots.length - 1;
+            int slot = slotOf(hash, mask);
+            while (this.slots[slot] != 0) {
+                int id = this.slots[slot] - 1;
+                if (this.hashes[id] == hash
+                        && this.matches(id, data, start, end)) {
+                    return id;
+                }
+                slot = (slot + 1) & mask;
+            }
+            return this.add(data, start, end, hash, slot);
+        }
+
+        /**Returns whether a name is the same as some bytes.
+         * @param id the name
+         * @param data the bytes
+         * @param start the offset of the bytes
+         * @param end the offset after them
+         * @return true if they are the same
+         */
+        private boolean matches(int id, byte[] data, int start, int end) {
+            int offset = this.offsets[id];
+            if (this.offsets[id + 1] - offset != end - start) {
+                return false;
+            }
+            for (int i = start; i < end; i++) {
+                if (this.bytes[offset++] != data[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**Adds a name.
+         * @param data the bytes
+         * @param start the offset of the name
+         * @param end the offset after it
+         * @param hash its hash
+         * @param slot the empty slot it goes in
+         * @return its no.
+         */
+        private int add(byte[] data, int start, int end, int hash,
+                int slot) {
+            int id = this.nameCount++;
+            if (id == this.hashes.length) {
+                this.hashes = Arrays.copyOf(this.hashes, 2 * id);
+                this.offsets = Arrays.copyOf(this.offsets, 2 * id + 1);
+            }
+            int length = end - start;
+            if (this.byteCount + length > this.bytes.length) {
+                this.bytes = Arrays.copyOf(this.bytes, Math.max(
+                        2 * this.bytes.length, this.byteCount + length));
+            }
+            System.arraycopy(data, start, this.bytes, this.byteCount, length);
+            this.byteCount += length;
+            this.offsets[id + 1] = this.byteCount;
+            this.hashes[id] = hash;
+            this.slots[slot] = id + 1;
+            //keeps the table at most half full
+            if (2 * this.nameCount > this.slots.length) {
+                this.slots = new int[2 * this.slots.length];
+                int mask = this.slots.length - 1;
+                for (int other = 0; other < this.nameCount; other++) {
+                    int s = slotOf(this.hashes[other], mask);
+                    while (this.slots[s] != 0) {
+                        s = (s + 1) & mask;
+                    }
+                    this.slots[s] = other + 1;
+                }
+            }
+            return id;
+        }
+
+        /**Finds the first slot to try for a name.
+         * @param hash the hash of the name
+         * @param mask the no. of slots less 1
+         * @return the slot
+         */
+        private static int slotOf(int hash, int mask) {
+            return (int) ((hash * 0x9E3779B97F4A7C15L) >>> 32) & mask;
+        }
+
+        /**Gets a name as a String.
+         * @param id the name
+         * @return the name
+         */
+        String name(int id) {
+            return new String(this.bytes, this.offsets[id],
+                    this.offsets[id + 1] - this.offsets[id],
+                    Charset.defaultCharset());
+        }
+    }
+}
@@ -0,0 +1,142 @@
+/**Finds the routes from a source airport under a segment threshold in a
+ * single pass over a sparse graph.
+ *
+ * The shortest paths by mileage are found with HeapDijkstra. Only if one
+ * of them goes over the threshold are the shortest paths by no. of
+ * segments needed; these are found with a breadth-first search over the
+ * same GraphCSR, instead of building a copy of the graph with every
+ * weight set to 1 and running the modified Dijkstra's algorithm on it.
+ *
+ * The search picks the same routes as Dijkstra.modifiedShortestPathTree:
+ * that algorithm settles the airports at each no. of segments highest
+ * index first and never replaces a path with one of equal length, so the
+ * airport before each airport is its highest-index neighbor one segment
+ * closer to the source.
+ *
+ * An instance keeps its work arrays between sources, so it should only
+ * be used by one thread at a time.
+ *
+ * @author smsukardi
+ */
+public class RouteEngine {
+
+    /** The graph, in sparse form for O(degree) neighbor lookups. */
+    private GraphCSR graph;
+    /** Stores the amount of airports. */
+    private int amtOfAirports;
+    /** Finds the shortest paths by mileage. */
+    private HeapDijkstra dijkstra;
+    /** The airports at the current no. of segments from the source. */
+    private int[] frontier;
+    /** The airports one segment further from the source. */
+    private int[] nextFrontier;
+
+    /**Constructor.
+     * @param yourGraph the graph to search, copied once if not a GraphCSR
+     */
+    public RouteEngine(Graph yourGraph) {
+        if (yourGraph instanceof GraphCSR) {
+            this.graph = (GraphCSR) yourGraph;
+        } else {
+            this.graph = GraphCSR.fromGraph(yourGraph);
+        }
+        this.graph.compact();
+        this.amtOfAirports = this.graph.nodeCount();
+        this.dijkstra = new HeapDijkstra(this.graph);
+        this.frontier = new int[this.amtOfAirports];
+        this.nextFrontier = new int[this.amtOfAirports];
+    }
+
+    /** Gets the graph being searched.
+     * @return the graph
+     */
+    public GraphCSR getGraph() {
+        return this.graph;
+    }
+
+    /**Finds the routes from a source airport.
+     * @param sourceNode the source node
+     * @param threshold the max. no. of segments of a route chosen by mileage
+     * @return the routes from the source
+     */
+    public SourceRoutes routes(int sourceNode, int threshold) {
+        ShortestPathTree mileage = this.dijkstra.search(sourceNode);
+        ShortestPathTree segments = null;
+        for (int i = 0; i < this.amtOfAirports; i++) {
+            if (mileage.getHops(i) > threshold) {
+                segments = this.segmentSearch(sourceNode);
+                break;
+            }
+        }
+        return new SourceRoutes(mileage, segments, threshold);
+    }
+
+    /**Finds the routes from a source airport for several thresholds at
+     * once. Neither tree depends on the threshold, so the routes share
+     * one search by mileage and at most one by no. of segments, and are
+     * the same as those found for each threshold alone.
+     * @param sourceNode the source node
+     * @param thresholds the max. no. of segments of a route chosen by
+     * mileage, for each set of routes wanted
+     * @return the routes from the source for each threshold, in order
+     */
+    public SourceRoutes[] routes(int sourceNode, int[] thresholds) {
+        ShortestPathTree mileage = this.dijkstra.search(sourceNode);
+        int maxHops = 0;
+        for (int i = 0; i < this.amtOfAirports; i++) {
+            maxHops = Math.max(maxHops, mileage.getHops(i));
+        }
+        ShortestPathTree segments = null;
+        for (int threshold : thresholds) {
+            if (maxHops > threshold) {
+                segments = this.segmentSearch(sourceNode);
+                break;
+            }
+        }
+        SourceRoutes[] routes = new SourceRoutes[thresholds.length];
+        for (int i = 0; i < thresholds.length; i++) {
+            routes[i] = new SourceRoutes(mileage,
+                    maxHops > thresholds[i] ? segments : null, thresholds[i]);
+        }
+        return routes;
+    }
+
+    /**Finds the shortest paths by no. of segments with a breadth-first
+     * search, taking the highest-index neighbor one segment closer to the
+     * source as the airport before each airport.
+     * @param sourceNode the source node
+     * @return the shortest path tree by no. of segments
+     */
+    public ShortestPathTree segmentSearch(int sourceNode) {
+        ShortestPathTree tree = new ShortestPathTree(sourceNode,
+                new int[this.amtOfAirports]);
+        int size = 1;
+        this.frontier[0] = sourceNode;
+        for (int hops = 1; size > 0; hops++) {
+            int nextSize = 0;
+            for (int i = 0; i < size; i++) {
+                int u = this.frontier[i];
+                for (int e = this.graph.firstEdge(u);
+                        e < this.graph.endEdge(u); e++) {
+                    int v = this.graph.edgeTarget(e);
+                    //only flights with a positive mileage count as segments
+                    if (this.graph.edgeWeight(e) <= 0) {
+                        continue;
+                    }
+                    if (tree.getDistance(v) == Dijkstra.INFINITY) {
+                        tree.setPath(v, u, hops);
+                        this.nextFrontier[nextSize++] = v;
+                    } else if (tree.getDistance(v) == hops
+                            && u > tree.getPredecessor(v)) {
+                        tree.setPath(v, u, hops);
+                    }
+                }
+            }
+            int[] temp = this.frontier;
+            this.frontier = this.nextFrontier;
+            this.nextFrontier = temp;
+            size = nextSize;
+        }
+        return tree;
+    }
+}
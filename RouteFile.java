@@ -0,0 +1,407 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.RandomAccessFile;
+import java.util.NoSuchElementException;
+
+/**Reads and writes routes.bin, a binary form of routes.txt which stores
+ * the shortest path trees of each source instead of every route spelt
+ * out, so it grows with the square of the no. of airports rather than
+ * with the total length of all the routes.
+ *
+ * The file starts with a header: the int 0x46525431 ("FRT1"), the no. of
+ * airports, the threshold, then the name of each airport in index order.
+ * Then comes one block per source, in source order: the length of the
+ * rest of the block in bytes, the source, 1 if the block holds a tree by
+ * no. of segments as well and 0 if not, then the predecessor of every
+ * airport in the tree by mileage and, if there is one, in the tree by no.
+ * of segments. Each predecessor is stored plus one (so an airport with
+ * none is 0) as a varint: 7 bits to a byte, low bits first, with the top
+ * bit set on every byte but the last. The hubs are the airports seen
+ * first, so most predecessors fit in one or two bytes.
+ *
+ * Which tree each route comes from is not stored: as in SourceRoutes it
+ * is the tree by no. of segments only where the route by mileage has more
+ * segments than the threshold. The routes are rebuilt from the trees only
+ * when they are asked for.
+ *
+ * The sources can be read in order with hasNext() and next(), or any one
+ * of them with routes(source). The first call to routes(source) finds
+ * where every block starts by reading only the block lengths, jumping
+ * from one to the next. After that each source is read straight from its
+ * offset, without decoding the sources before it.
+ *
+ * @author smsukardi
+ */
+public class RouteFile implements Closeable {
+
+    /** The first int of every routes.bin. */
+    public static final int MAGIC = 0x46525431;
+    /** The size of the buffers the file is read and written through. */
+    private static final int BUFFER_SIZE = 1 << 16;
+    /** The no. of bits stored in each byte of a varint. */
+    private static final int VARINT_BITS = 7;
+    /** The low bits of a byte of a varint. */
+    private static final int VARINT_MASK = 0x7F;
+    /** The bit set on every byte of a varint but the last. */
+    private static final int VARINT_MORE = 0x80;
+
+    /** The name of the file. */
+    private String fileName;
+    /** The stream being read. */
+    private DataInputStream input;
+    /** The file read by routes(source), or null until it is first used. */
+    private RandomAccessFile randomAccess;
+    /** Where each source's block starts, or null until it is first
+     * needed. */
+    private long[] offsets;
+    /** The name of each airport. */
+    private String[] names;
+    /** The threshold no. of segments the routes were found with. */
+    private int threshold;
+    /** The no. of sources read so far. */
+    private int sourcesRead;
+    /** The current block. */
+    private byte[] block;
+    /** The position of the next byte in the block. */
+    private int position;
+
+    /**Opens a routes.bin for reading and reads its header.
+     * @param fileName the file to read
+     * @throws IOException if the file cannot be read or is not a routes.bin
+     */
+    public RouteFile(String fileName) throws IOException {
+        this.fileName = fileName;
+        this.input = new DataInputStream(new BufferedInputStream(
+                new FileInputStream(fileName), BUFFER_SIZE));
+        try {
+            if (this.input.readInt() != MAGIC) {
+                throw new IOException(fileName + " is not a routes.bin.");
+            }
+            this.names = new String[this.input.readInt()];
+            this.threshold = this.input.readInt();
+            for (int i = 0; i < this.names.length; i++) {
+                this.names[i] = this.input.readUTF();
+            }
+        } catch (IOException e) {
+            this.input.close();
+            throw e;
+        }
+        this.block = new byte[0];
+    }
+
+    /**Main method. Prints a routes.bin as routes.txt, or prints the routes
+     * from one airport to the console.
+     *
+     * @param args the routes.bin to read, then optionally the name of the
+     * airport whose routes to print
+     * @throws IOException if a file cannot be read or written
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.out.println("Please enter a routes.bin file as "
+                    + "command-line input.");
+            return;
+        }
+        RouteFile routes = new RouteFile(args[0]);
+        try {
+            Graph airports = routes.airports(new GraphCSR());
+            if (args.length > 1) {
+                for (int i = 0; i < routes.nodeCount(); i++) {
+                    if (routes.getName(i).equals(args[1])) {
+                        System.out.print(RouteGenerator.formatRoutes(
+                                routes.routes(i), airports));
+                        return;
+                    }
+                }
+                System.out.println("Unknown airport.");
+                return;
+            }
+            PrintWriter output = new PrintWriter("routes.txt");
+            try {
+                while (routes.hasNext()) {
+                    output.print(RouteGenerator.formatRoutes(routes.next(),
+                            airports));
+                }
+            } finally {
+                output.close();
+            }
+        } finally {
+            routes.close();
+        }
+    }
+
+    /**Returns whether a file starts like a routes.bin.
+     * @param fileName the file to check
+     * @return true if it starts with MAGIC
+     * @throws IOException if the file cannot be read
+     */
+    public static boolean isRouteFile(String fileName) throws IOException {
+        DataInputStream input = new DataInputStream(
+                new FileInputStream(fileName));
+        try {
+            return input.readInt() == MAGIC;
+        } catch (EOFException e) {
+            return false;
+        } finally {
+            input.close();
+        }
+    }
+
+    /**Opens a routes.bin for writing and writes its header.
+     * @param fileName the file to write
+     * @param yourGraph the graph holding the airport names
+     * @param threshold the threshold no. of segments
+     * @return the stream to write each source's block to
+     * @throws IOException if the file cannot be written
+     */
+    public static DataOutputStream create(String fileName, Graph yourGraph,
+            int threshold) throws IOException {
+        DataOutputStream output = new DataOutputStream(
+                new BufferedOutputStream(new FileOutputStream(fileName),
+                        BUFFER_SIZE));
+        output.writeInt(MAGIC);
+        output.writeInt(yourGraph.nodeCount());
+        output.writeInt(threshold);
+        for (int i = 0; i < yourGraph.nodeCount(); i++) {
+            output.writeUTF(yourGraph.getValue(i));
+        }
+        return output;
+    }
+
+    /**Encodes the routes from one source as a block of routes.bin.
+     * @param routes the routes from the source
+     * @return the block, including its length
+     */
+    public static byte[] encodeRoutes(SourceRoutes routes) {
+        ShortestPathTree mileage = routes.getMileageTree();
+        ShortestPathTree segments = routes.getSegmentTree();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        //leaves room for the length
+        for (int i = 0; i < Integer.BYTES; i++) {
+            bytes.write(0);
+        }
+        writeVarint(bytes, routes.getSource());
+        bytes.write(segments == null ? 0 : 1);
+        writeTree(bytes, mileage);
+        if (segments != null) {
+            writeTree(bytes, segments);
+        }
+        byte[] block = bytes.toByteArray();
+        int length = block.length - Integer.BYTES;
+        for (int i = 0; i < Integer.BYTES; i++) {
+            block[i] = (byte) (length >>> (Byte.SIZE
+                    * (Integer.BYTES - 1 - i)));
+        }
+        return block;
+    }
+
+    /**Writes the predecessor of every node in a tree.
+     * @param bytes the block being written
+     * @param tree the tree
+     */
+    private static void writeTree(ByteArrayOutputStream bytes,
+            ShortestPathTree tree) {
+        int amtOfAirports = tree.nodeCount();
+        for (int v = 0; v < amtOfAirports; v++) {
+            writeVarint(bytes, tree.getPredecessor(v) + 1);
+        }
+    }
+
+    /**Writes a non-negative int as a varint.
+     * @param bytes the block being written
+     * @param value the value
+     */
+    private static void writeVarint(ByteArrayOutputStream bytes, int value) {
+        while ((value & ~VARINT_MASK) != 0) {
+            bytes.write((value & VARINT_MASK) | VARINT_MORE);
+            value >>>= VARINT_BITS;
+        }
+        bytes.write(value);
+    }
+
+    /** Gets the no. of airports.
+     * @return the no. of airports
+     */
+    public int nodeCount() {
+        return this.names.length;
+    }
+
+    /** Gets the name of an airport.
+     * @param v the airport's index
+     * @return the name
+     */
+    public String getName(int v) {
+        return this.names[v];
+    }
+
+    /** Gets the threshold the routes were found with.
+     * @return the threshold
+     */
+    public int getThreshold() {
+        return this.threshold;
+    }
+
+    /**Sets up a graph with the airports of the file and no flights.
+     * @param yourGraph the graph to set up
+     * @return the graph
+     */
+    public Graph airports(Graph yourGraph) {
+        yourGraph.init(this.names.length);
+        for (int i = 0; i < this.names.length; i++) {
+            yourGraph.setValue(i, this.names[i]);
+        }
+        return yourGraph;
+    }
+
+    /**Returns whether there are more sources to read.
+     * @return true if the routes from another source follow
+     */
+    public boolean hasNext() {
+        return this.sourcesRead < this.names.length;
+    }
+
+    /**Reads the routes from the next source.
+     * @return the routes, with trees holding no distances
+     * @throws IOException if the file cannot be read or is corrupt
+     */
+    public SourceRoutes next() throws IOException {
+        if (!this.hasNext()) {
+            throw new NoSuchElementException();
+        }
+        int length = this.input.readInt();
+        if (this.block.length < length) {
+            this.block = new byte[length];
+        }
+        this.input.readFully(this.block, 0, length);
+        this.sourcesRead++;
+        return this.decode(this.sourcesRead - 1);
+    }
+
+    /**Reads the routes from any one source, without reading the sources
+     * before it. Does not change which source next() reads.
+     * @param sourceNode the source node
+     * @return the routes, with trees holding no distances
+     * @throws IOException if the file cannot be read or is corrupt
+     */
+    public SourceRoutes routes(int sourceNode) throws IOException {
+        if (sourceNode < 0 || sourceNode >= this.names.length) {
+            throw new IllegalArgumentException("No source no. "
+                    + sourceNode + ".");
+        }
+        if (this.offsets == null) {
+            this.indexBlocks();
+        }
+        this.randomAccess.seek(this.offsets[sourceNode]);
+        int length = this.randomAccess.readInt();
+        if (this.block.length < length) {
+            this.block = new byte[length];
+        }
+        this.randomAccess.readFully(this.block, 0, length);
+        return this.decode(sourceNode);
+    }
+
+    /**Opens the file a second time and finds where each source's block
+     * starts, reading only the header and the length of each block.
+     * @throws IOException if the file cannot be read or is cut short
+     */
+    private void indexBlocks() throws IOException {
+        RandomAccessFile file = new RandomAccessFile(this.fileName, "r");
+        try {
+            //skips the header, as the constructor has already read it
+            file.seek(3 * Integer.BYTES);
+            for (int i = 0; i < this.names.length; i++) {
+                file.readUTF();
+            }
+            long[] starts = new long[this.names.length];
+            long offset = file.getFilePointer();
+            long end = file.length();
+            int found = 0;
+            while (found < starts.length && offset + Integer.BYTES <= end) {
+                starts[found++] = offset;
+                file.seek(offset);
+                offset += Integer.BYTES + file.readInt();
+            }
+            if (found < starts.length || offset > end) {
+                throw new EOFException(this.fileName + " is cut short.");
+            }
+            this.offsets = starts;
+        } catch (IOException e) {
+            file.close();
+            throw e;
+        }
+        this.randomAccess = file;
+    }
+
+    /**Decodes the block just read into the routes from its source.
+     * @param expected the source the block should be for
+     * @return the routes, with trees holding no distances
+     * @throws IOException if the block is corrupt
+     */
+    private SourceRoutes decode(int expected) throws IOException {
+        this.position = 0;
+        try {
+            int sourceNode = this.readVarint();
+            if (sourceNode != expected) {
+                throw new IllegalStateException("Found source no. "
+                        + sourceNode + ".");
+            }
+            boolean hasSegments = this.block[this.position++] != 0;
+            ShortestPathTree mileage = ShortestPathTree.fromPredecessors(
+                    sourceNode, this.readTree());
+            ShortestPathTree segments = null;
+            if (hasSegments) {
+                segments = ShortestPathTree.fromPredecessors(sourceNode,
+                        this.readTree());
+            }
+            return new SourceRoutes(mileage, segments, this.threshold);
+        } catch (RuntimeException e) {
+            throw new IOException("Corrupt routes for source no. "
+                    + expected + ".", e);
+        }
+    }
+
+    /**Reads the predecessor of every node in a tree.
+     * @return the predecessors, -1 for none
+     */
+    private int[] readTree() {
+        int[] predecessor = new int[this.names.length];
+        for (int v = 0; v < predecessor.length; v++) {
+            predecessor[v] = this.readVarint() - 1;
+        }
+        return predecessor;
+    }
+
+    /**Reads a varint from the current block.
+     * @return the value
+     */
+    private int readVarint() {
+        int value = 0;
+        int shift = 0;
+        int b;
+        do {
+            b = this.block[this.position++];
+            value |= (b & VARINT_MASK) << shift;
+            shift += VARINT_BITS;
+        } while ((b & VARINT_MORE) != 0);
+        return value;
+    }
+
+    /**Closes the file.
+     * @throws IOException if the file cannot be closed
+     */
+    public void close() throws IOException {
+        this.input.close();
+        if (this.randomAccess != null) {
+            this.randomAccess.close();
+        }
+    }
+}
@@ -1,10 +1,8 @@
-import java.io.File;
+import java.io.DataOutputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.PrintWriter;
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.Scanner;
+import java.io.UncheckedIOException;
 
 /**A customized flight selection algorithm to generate optimal routes 
  * between pairs of airports that an airline services. 
@@ -31,6 +29,11 @@ public class RouteGenerator {
         //stores the file name to read from and the threshold inputed
         String fileName = "";
         int threshold = 0;
+        boolean sparse = false;
+        boolean binary = false;
+        boolean floyd = false;
+        int[] thresholds = null;
+        int parallelism = 1;
 
         //gives a message if the incorrect command-line input was inputed
         if (args.length <= 1) {
@@ -42,202 +45,227 @@ public class RouteGenerator {
             fileName = args[0];
             threshold = Integer.parseInt(args[1]);
         }
-
-        //Parses input for the first time
-        //maps strings to integer indices
-        HashMap<String, Integer> myMap = new HashMap<String, Integer>();
-        int amtOfAirports = 0;
-        
-        RouteGenerator myRoute = new RouteGenerator();
-        amtOfAirports = myRoute.process(fileName, myMap, amtOfAirports);
-
-        //Constructs a new GraphMatrix
-        GraphMatrix yourGraph = new GraphMatrix();
-        yourGraph.init(amtOfAirports);
-        //inserts the airports in the 2-D adjacency matrix
-        for (String key : myMap.keySet()) {
-            yourGraph.setValue(myMap.get(key), key);
+        //reads the optional flags following the threshold
+        for (int i = 2; i < args.length; i++) {
+            if (args[i].equals("-sparse")) {
+                sparse = true;
+            } else if (args[i].equals("-binary")) {
+                binary = true;
+            } else if (args[i].equals("-floyd")) {
+                floyd = true;
+            } else if (args[i].equals("-thresholds")
+                    && i + 1 < args.length) {
+                String[] list = args[++i].split(",");
+                thresholds = new int[list.length];
+                for (int j = 0; j < list.length; j++) {
+                    thresholds[j] = Integer.parseInt(list[j].trim());
+                }
+            } else if (args[i].equals("-threads") && i + 1 < args.length) {
+                //0 means one thread per core
+                parallelism = RouteRunner.parallelism(
+                        Integer.parseInt(args[++i]));
+            }
         }
 
-        //Parses input for the second time
-        //Populates the adjacency matrix 
-        myRoute.populateMatrix(fileName, myMap, yourGraph);
-
-        //updates the threshold to the max possible threshold if the threshold
-        //given is greater than the max possible or is 0
-        if (threshold <= 0 || threshold > amtOfAirports) {
-            threshold = amtOfAirports;
-        } 
+        //Reads the flights into a graph
+        Graph yourGraph = readGraph(fileName, sparse);
+        int amtOfAirports = yourGraph.nodeCount();
+        threshold = maxSegments(threshold, amtOfAirports);
+        RouteGenerator myRoute = new RouteGenerator();
         
         //Applies the algorithms to the Adjacency Matrix.
-        myRoute.applyDijkstra(amtOfAirports, yourGraph, threshold, myMap);
+        if (thresholds != null) {
+            myRoute.writeThresholds(yourGraph, thresholds, parallelism);
+        } else if (binary) {
+            myRoute.writeBinary(yourGraph, threshold, parallelism);
+        } else if (floyd) {
+            myRoute.applyFloydWarshall(yourGraph, threshold, parallelism);
+        } else {
+            myRoute.applyDijkstra(amtOfAirports, yourGraph, threshold,
+                    parallelism);
+        }
     }
 
-
-    /**Processes the input for the first time.
+    /**Reads a file of flights into a graph, one flight per line in the
+     * form "BWI PHL 80", stopping at the first line which is not a flight.
      * 
-     * @param fileName the filename
-     * @param myMap the hashmap
-     * @param amtOfAirports the amt of airports (set to 0)
-     * @return the modified amount of airports
-     * @throws FileNotFoundException the filenotfound exception
+     * @param fileName the file name of the .txt file to open
+     * @param sparse whether to use a GraphCSR instead of a GraphMatrix
+     * @return the graph, with a flight each way for every line
+     * @throws IOException if the file cannot be read
      */
-    public int process(String fileName, HashMap<String, Integer> myMap, 
-            int amtOfAirports) throws FileNotFoundException {
-        boolean notAWord = false;
-        //creates scanner
-        Scanner firstRead = new Scanner(new File(fileName));
-
-        //counts the number of airports and places them into the hashMap
-        while (firstRead.hasNextLine() && !notAWord) {
-            String next = firstRead.nextLine();
-            String[] split = next.split("\\s+");
-
-            if (split[0].length() != 2 + 1 || split[1].length() != 2 + 1) {
-                notAWord = true;
-            } else {
-                if (myMap.get(split[0]) == null) {
-                    myMap.put(split[0], amtOfAirports);
-                    amtOfAirports++;
-                }
-                if (myMap.get(split[1]) == null) {
-                    myMap.put(split[1], amtOfAirports);
-                    amtOfAirports++;
-                }
-            }           
-        } 
-        firstRead.close(); //closes the scanner
-        return amtOfAirports;
+    public static Graph readGraph(String fileName, boolean sparse) 
+            throws IOException {
+        //Parses the input in one pass, then builds the graph
+        return FlightReader.read(fileName).toGraph(sparse);
     }
 
-    /**Processes the input for the second time to populate the matrix.
+    /**Updates the threshold to the max possible threshold if the threshold
+     * given is greater than the max possible or is 0.
      * 
-     * @param fileName the the file name of the .txt file to open
-     * @param myMap the hashmap
-     * @param yourGraph the graph to populate
-     * @throws FileNotFoundException an exception
+     * @param threshold the threshold inputed
+     * @param amtOfAirports the amount of airports
+     * @return the threshold to use
      */
-    private void populateMatrix(String fileName, 
-            HashMap<String, Integer> myMap, GraphMatrix yourGraph) 
-                    throws FileNotFoundException {
-        boolean notAWord2 = false;
-        Scanner secondRead = new Scanner(new File(fileName));
-
-        while (secondRead.hasNextLine() && !notAWord2) {
-            String next = secondRead.nextLine();
-            String[] split = next.split("\\s+");
-
-            if (split[0].length() != 2 + 1 || split[1].length() != 2 + 1) {
-                notAWord2 = true;
-            } else {
-                //adds the weights to the adjacency matrix
-                yourGraph.addEdge(myMap.get(split[0]).intValue(), 
-                        myMap.get(split[1]).intValue(), 
-                        Integer.parseInt(split[2]));
-                yourGraph.addEdge(myMap.get(split[1]).intValue(), 
-                        myMap.get(split[0]).intValue(), 
-                        Integer.parseInt(split[2]));
-            }
-        }
-        secondRead.close(); //closes scanner
+    public static int maxSegments(int threshold, int amtOfAirports) {
+        if (threshold <= 0 || threshold > amtOfAirports) {
+            return amtOfAirports;
+        } 
+        return threshold;
     }
 
+
     /**Applies Dijkstra's algorithm to the graph.
+     * 
+     * With more than one thread the sources are spread over a fork-join
+     * pool, and the routes are written to the file in the same order as
+     * with one thread.
      * 
      * @param amtOfAirports the amount of airports
      * @param yourGraph the graph with the adjacency matrix
      * @param threshold the threshold
-     * @param myMap the hashmap
+     * @param parallelism the no. of threads to use
      * @throws FileNotFoundException a filenotfoundexception
      */
-    private void applyDijkstra(int amtOfAirports, GraphMatrix yourGraph,
-            int threshold, HashMap<String, Integer> myMap) 
-                    throws FileNotFoundException {
+    private void applyDijkstra(int amtOfAirports, Graph yourGraph,
+            int threshold, int parallelism) throws FileNotFoundException {
         
         //Creates a printwriter object to print output to a .txt file
         PrintWriter output = new PrintWriter("routes.txt");
+        //The engine is reused for every source; it only searches by no.
+        //of segments when a route by mileage is beyond the threshold
+        RouteEngine applyAlgorithm = new RouteEngine(yourGraph);
+        final GraphCSR graph = applyAlgorithm.getGraph();
+        try {
+            RouteRunner.run(applyAlgorithm, threshold, parallelism,
+                routes -> formatRoutes(routes, graph), output::print);
+        } finally {
+            output.close();
+        }
+    }
 
-        for (int node = 0; node < amtOfAirports; node++) {
-            //Applies Dijkstra's algorithm
-            Dijkstra applyAlgorithm = new Dijkstra(amtOfAirports);
-            ArrayList<String>[] paths = applyAlgorithm.dijkstra(
-                    yourGraph, node, new int[amtOfAirports]);       
+    /**Finds the routes between every pair of airports with the blocked
+     * Floyd-Warshall algorithm instead, which is faster on dense networks,
+     * and writes the same routes.txt.
+     * 
+     * @param yourGraph the graph of flights
+     * @param threshold the threshold
+     * @param parallelism the no. of threads to use
+     * @throws FileNotFoundException a filenotfoundexception
+     */
+    private void applyFloydWarshall(Graph yourGraph, final int threshold,
+            int parallelism) throws FileNotFoundException {
+        final FloydWarshall allPairs = new FloydWarshall(yourGraph,
+                parallelism);
+        final GraphCSR graph = allPairs.getGraph();
+        PrintWriter output = new PrintWriter("routes.txt");
+        try {
+            RouteRunner.run(graph.nodeCount(), parallelism,
+                source -> formatRoutes(allPairs.routes(source, threshold),
+                        graph),
+                output::print);
+        } finally {
+            output.close();
+        }
+    }
 
-            //Decides whether necessary to apply modified Djikstra's algorithm
-            boolean applyModified = false;            
-            for (int i = 0; i < paths.length; i++) {
-                if (paths[i].size() > (threshold + 1)) {
-                    applyModified = true;
-                }
-            }
-            //Applies modified djikstra's algorithm to routes beyond threshold
-            if (applyModified) {
-                RouteGenerator myRoute = new RouteGenerator();
-                myRoute.applyModifiedDijkstra(amtOfAirports,
-                        yourGraph, myMap, node, paths, threshold);
+    /**Finds the routes from every source once and writes them for each
+     * of several thresholds, to routes_#.txt for threshold #.
+     * 
+     * @param yourGraph the graph of flights
+     * @param thresholds the thresholds, as given on the command line
+     * @param parallelism the no. of threads to use
+     * @throws FileNotFoundException if a file cannot be written
+     */
+    private void writeThresholds(Graph yourGraph, int[] thresholds,
+            int parallelism) throws FileNotFoundException {
+        final int[] maxSegments = new int[thresholds.length];
+        final PrintWriter[] outputs = new PrintWriter[thresholds.length];
+        RouteEngine applyAlgorithm = new RouteEngine(yourGraph);
+        final GraphCSR graph = applyAlgorithm.getGraph();
+        try {
+            for (int i = 0; i < thresholds.length; i++) {
+                maxSegments[i] = maxSegments(thresholds[i],
+                        graph.nodeCount());
+                outputs[i] = new PrintWriter("routes_" + thresholds[i]
+                        + ".txt");
             }
-            //Prints output to a file
-            for (int i = 0; i < amtOfAirports; i++) {
-                for (int j = 0; j < paths[i].size() - 1; j++) {
-                    output.print(paths[i].get(j) + "->");
-                }                
-                output.print(paths[i].get(paths[i].size() - 1));   
-                //prints spaces as long as not the very last line
-                if (node != amtOfAirports - 1 || i != amtOfAirports - 1) {
-                    output.println();
+            RouteRunner.run(applyAlgorithm, parallelism,
+                (routeEngine, source) -> {
+                    SourceRoutes[] routes = routeEngine.routes(source,
+                            maxSegments);
+                    String[] text = new String[routes.length];
+                    for (int i = 0; i < routes.length; i++) {
+                        text[i] = formatRoutes(routes[i], graph);
+                    }
+                    return text;
+                },
+                text -> {
+                    for (int i = 0; i < text.length; i++) {
+                        outputs[i].print(text[i]);
+                    }
+                });
+        } finally {
+            for (PrintWriter output : outputs) {
+                if (output != null) {
+                    output.close();
                 }
             }
-            //prints spaces between nodes as long as not the very last line
-            if (node != amtOfAirports - 1) {
-                output.println();
-            }
         }
-        output.close();        
     }
 
-
-    /**Applies the modified Dijkstra's algorithm to the graph.
+    /**Finds the routes from every source and writes their shortest path
+     * trees to routes.bin, which RouteFile reads back.
      * 
-     * @param amtOfAirports the amount of airports
-     * @param yourGraph the graph
-     * @param myMap the hashmap
-     * @param node the node being traversed
-     * @param paths an array of ArrayLists containing paths
-     * @param threshold the threshold no. of paths
+     * @param yourGraph the graph of flights
+     * @param threshold the threshold
+     * @param parallelism the no. of threads to use
+     * @throws IOException if routes.bin cannot be written
      */
-    private void applyModifiedDijkstra(int amtOfAirports, GraphMatrix yourGraph,
-            HashMap<String, Integer> myMap, int node, ArrayList<String>[] paths,
-            int threshold) {
-        GraphMatrix newGraph = new GraphMatrix(); 
-        newGraph.init(amtOfAirports);
-        for (String key : myMap.keySet()) {
-            newGraph.setValue(myMap.get(key), key);
+    private void writeBinary(Graph yourGraph, int threshold,
+            int parallelism) throws IOException {
+        RouteEngine applyAlgorithm = new RouteEngine(yourGraph);
+        final DataOutputStream output = RouteFile.create("routes.bin",
+                yourGraph, threshold);
+        try {
+            RouteRunner.run(applyAlgorithm, threshold, parallelism,
+                RouteFile::encodeRoutes, block -> {
+                    try {
+                        output.write(block);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        } finally {
+            output.close();
         }
+    }
 
-        //Sets all edge weights to 1 so it is effectively 
-        //an unweighted graph
+    /**Formats the routes from one source as they appear in routes.txt.
+     * 
+     * @param routes the routes from the source
+     * @param yourGraph the graph holding the airport names
+     * @return one line per destination, followed by a blank line unless 
+     * this is the last source
+     */
+    public static String formatRoutes(SourceRoutes routes, Graph yourGraph) {
+        int amtOfAirports = yourGraph.nodeCount();
+        int node = routes.getSource();
+        String newLine = System.lineSeparator();
+        StringBuilder output = new StringBuilder();
         for (int i = 0; i < amtOfAirports; i++) {
-            for (int j = 0; j < amtOfAirports; j++) {
-                if (yourGraph.getWeight(i, j) > 0) {
-                    newGraph.addEdge(i, j, 1);
-                }
+            routes.appendRoute(i, yourGraph, output);
+            //prints spaces as long as not the very last line
+            if (node != amtOfAirports - 1 || i != amtOfAirports - 1) {
+                output.append(newLine);
             }
         }
-        
-        Dijkstra applyAlgorithm = new Dijkstra(amtOfAirports);
-        
-        //Retrieves modified results
-        ArrayList<String>[] modPaths = applyAlgorithm.modifiedDijkstra(
-                newGraph, yourGraph, node, new int[amtOfAirports]);
-        
-        //For paths beyond the threshold, sets results to the 
-        //modified results
-        for (int i = 0; i < paths.length; i++) {
-            if (paths[i].size() > (threshold + 1)) {
-                paths[i] = modPaths[i];
-            }
-        }         
+        //prints spaces between nodes as long as not the very last line
+        if (node != amtOfAirports - 1) {
+            output.append(newLine);
+        }
+        return output.toString();
     }
 }
-
-
@@ -0,0 +1,122 @@
+import java.util.ArrayDeque;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+
+/**Finds the routes from every source airport, on one or more threads, and
+ * hands the results back in source order.
+ *
+ * Each source is independent, so with more than one thread the sources
+ * are spread over a fork-join pool. Every thread searching with a
+ * RouteEngine has its own (and so its own work arrays) over the shared
+ * graph; work which needs no engine, such as reading the routes out of a
+ * FloydWarshall, is given only the source.
+ *
+ * @author smsukardi
+ */
+public final class RouteRunner {
+
+    /** How many sources each thread may have computed ahead of the one
+     * being handed back. */
+    private static final int SOURCES_PER_THREAD = 4;
+
+    /**Empty constructor.
+     */
+    private RouteRunner() {
+    }
+
+    /**Converts the no. of threads asked for into the no. to use.
+     *
+     * @param threads the no. of threads given on the command line
+     * @return the no. of threads, or the no. of cores if threads is 0
+     */
+    public static int parallelism(int threads) {
+        if (threads <= 0) {
+            return Runtime.getRuntime().availableProcessors();
+        }
+        return threads;
+    }
+
+    /**Finds the routes from every source.
+     *
+     * @param <T> the type of result made from each source's routes
+     * @param engine the engine to use (on this thread)
+     * @param threshold the threshold no. of segments
+     * @param parallelism the no. of threads to use
+     * @param work turns a source's routes into a result; called on the
+     * thread which found the routes
+     * @param consumer receives the results, in source order, on this thread
+     */
+    public static <T> void run(RouteEngine engine, final int threshold,
+            int parallelism, final Function<SourceRoutes, T> work,
+            Consumer<T> consumer) {
+        run(engine, parallelism, (routeEngine, source) -> work.apply(
+                routeEngine.routes(source, threshold)), consumer);
+    }
+
+    /**Does some work for every source, such as finding its routes.
+     *
+     * @param <T> the type of result made for each source
+     * @param engine the engine to use (on this thread)
+     * @param parallelism the no. of threads to use
+     * @param work turns a source into a result, given the engine for the
+     * thread it is called on
+     * @param consumer receives the results, in source order, on this thread
+     */
+    public static <T> void run(final RouteEngine engine, int parallelism,
+            final BiFunction<RouteEngine, Integer, T> work,
+            Consumer<T> consumer) {
+        final GraphCSR graph = engine.getGraph();
+        if (parallelism <= 1) {
+            run(graph.nodeCount(), parallelism,
+                source -> work.apply(engine, source), consumer);
+            return;
+        }
+
+        //Gives each thread its own engine over the shared graph
+        final ThreadLocal<RouteEngine> engines =
+                ThreadLocal.withInitial(() -> new RouteEngine(graph));
+        run(graph.nodeCount(), parallelism,
+            source -> work.apply(engines.get(), source), consumer);
+    }
+
+    /**Does some work for every source which needs no engine.
+     *
+     * @param <T> the type of result made for each source
+     * @param amtOfAirports the no. of sources
+     * @param parallelism the no. of threads to use
+     * @param work turns a source into a result
+     * @param consumer receives the results, in source order, on this thread
+     */
+    public static <T> void run(int amtOfAirports, int parallelism,
+            final IntFunction<T> work, Consumer<T> consumer) {
+        if (parallelism <= 1) {
+            for (int node = 0; node < amtOfAirports; node++) {
+                consumer.accept(work.apply(node));
+            }
+            return;
+        }
+
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        ArrayDeque<ForkJoinTask<T>> running =
+                new ArrayDeque<ForkJoinTask<T>>();
+        int ahead = SOURCES_PER_THREAD * parallelism;
+        int submitted = 0;
+        try {
+            for (int node = 0; node < amtOfAirports; node++) {
+                //keeps a bounded no. of sources computing ahead of this one
+                while (submitted < amtOfAirports
+                        && submitted < node + ahead) {
+                    final int source = submitted++;
+                    running.add(pool.submit(() -> work.apply(source)));
+                }
+                consumer.accept(running.poll().join());
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+}
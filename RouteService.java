@@ -0,0 +1,264 @@
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Scanner;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**Answers single route queries (origin, destination, threshold) against a
+ * graph loaded once, for callers which cannot wait for a batch run of
+ * RouteGenerator.
+ *
+ * The routes from a source are found once for the whole source and kept
+ * in a least recently used cache keyed by the source and the threshold,
+ * so a later query from the same source only rebuilds the route from the
+ * cached trees. The routes are the same as those in routes.txt.
+ *
+ * Given the positions of the airports, a query is first answered with an
+ * A* search from the origin towards the destination (see AStarSearch),
+ * which only goes through the routes from the whole source when the
+ * route by mileage is over the threshold. Where two routes by mileage
+ * tie, the route picked may differ from the one in routes.txt, and so may
+ * its mileage: the full search may pick a tied route over the threshold
+ * and fall back to the route with the fewest segments, where A* found
+ * one within it.
+ *
+ * A RouteService may be shared by any no. of threads. Each thread
+ * searches with its own RouteEngine (and AStarSearch) over the shared
+ * graph, and the cache is only locked to look up or add an entry, never
+ * during a search; two threads missing on the same source at once may
+ * both search it.
+ *
+ * @author smsukardi
+ */
+public class RouteService {
+
+    /** The no. of sources cached when no size is given. */
+    public static final int DEFAULT_CAPACITY = 256;
+
+    /** The graph, shared by every thread's engine. */
+    private GraphCSR graph;
+    /** The index of each airport, by name. */
+    private HashMap<String, Integer> airports;
+    /** Each thread's engine. */
+    private ThreadLocal<RouteEngine> engines;
+    /** Each thread's A* search, or null if there are no positions. */
+    private ThreadLocal<AStarSearch> searches;
+    /** The routes from recently queried sources, least recent first. */
+    private LinkedHashMap<Long, SourceRoutes> cache;
+    /** The no. of queries answered from the cache. */
+    private AtomicLong hits;
+    /** The no. of queries which needed a search. */
+    private AtomicLong misses;
+    /** The no. of queries answered by an A* search alone. */
+    private AtomicLong direct;
+
+    /**Constructor.
+     * @param yourGraph the graph of flights, copied once if not a GraphCSR
+     * @param capacity the max. no. of sources to keep the routes from
+     */
+    public RouteService(Graph yourGraph, int capacity) {
+        this(yourGraph, capacity, null);
+    }
+
+    /**Constructor.
+     * @param yourGraph the graph of flights, copied once if not a GraphCSR
+     * @param capacity the max. no. of sources to keep the routes from
+     * @param coordinates the positions of the graph's airports, to answer
+     * queries with A*, or null to always use the routes from the source
+     */
+    public RouteService(Graph yourGraph, final int capacity,
+            final AirportCoordinates coordinates) {
+        RouteEngine engine = new RouteEngine(yourGraph);
+        final GraphCSR shared = engine.getGraph();
+        this.graph = shared;
+        this.engines = ThreadLocal.withInitial(() -> new RouteEngine(shared));
+        if (coordinates != null) {
+            this.searches = ThreadLocal.withInitial(
+                () -> new AStarSearch(shared, coordinates));
+        }
+        this.airports = new HashMap<String, Integer>();
+        for (int i = 0; i < shared.nodeCount(); i++) {
+            this.airports.put(shared.getValue(i), i);
+        }
+        //access order, dropping the least recently used source when full
+        this.cache = new LinkedHashMap<Long, SourceRoutes>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            protected boolean removeEldestEntry(
+                    Map.Entry<Long, SourceRoutes> eldest) {
+                return size() > capacity;
+            }
+        };
+        this.hits = new AtomicLong();
+        this.misses = new AtomicLong();
+        this.direct = new AtomicLong();
+    }
+
+    /**Main method. Answers queries read from the console, one per line in
+     * the form "BWI PHL", until a blank line.
+     *
+     * @param args the .txt file containing flight information, the
+     * threshold, then optionally -cache # for the no. of sources cached
+     * and -coords followed by a file of airport positions, one per line in
+     * the form "BWI 39.1754 -76.6683", to answer queries with A*
+     * @throws IOException if a file cannot be read
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length <= 1) {
+            System.out.println("Please enter a .txt file containing "
+                    + "flight information followed by the max. no. of "
+                    + "segments as command-line input.");
+            return;
+        }
+        int threshold = Integer.parseInt(args[1]);
+        int capacity = DEFAULT_CAPACITY;
+        String coordinateFile = null;
+        for (int i = 2; i < args.length; i++) {
+            if (args[i].equals("-cache") && i + 1 < args.length) {
+                capacity = Integer.parseInt(args[++i]);
+            } else if (args[i].equals("-coords") && i + 1 < args.length) {
+                coordinateFile = args[++i];
+            }
+        }
+        Graph yourGraph = RouteGenerator.readGraph(args[0], true);
+        AirportCoordinates coordinates = null;
+        if (coordinateFile != null) {
+            coordinates = AirportCoordinates.read(coordinateFile, yourGraph);
+        }
+        RouteService service = new RouteService(yourGraph, capacity,
+                coordinates);
+        Scanner input = new Scanner(System.in);
+        while (input.hasNextLine()) {
+            String[] query = input.nextLine().trim().split("\\s+");
+            if (query.length < 2) {
+                break;
+            }
+            long start = System.nanoTime();
+            ArrayList<String> route;
+            try {
+                route = service.route(query[0], query[1], threshold);
+            } catch (IllegalArgumentException e) {
+                System.out.println("Unknown airport.");
+                continue;
+            }
+            long elapsed = System.nanoTime() - start;
+            System.out.println(String.join("->", route) + " ("
+                    + elapsed / 1000 + " us)");
+        }
+        input.close();
+        System.out.println(service.getHits() + " hits, "
+                + service.getMisses() + " misses, "
+                + service.getDirect() + " by A*");
+    }
+
+    /** Gets the graph the routes are found in.
+     * @return the graph
+     */
+    public GraphCSR getGraph() {
+        return this.graph;
+    }
+
+    /**Gets the index of an airport.
+     * @param name the airport's name
+     * @return the index
+     * @throws IllegalArgumentException if there is no such airport
+     */
+    public int indexOf(String name) {
+        Integer index = this.airports.get(name);
+        if (index == null) {
+            throw new IllegalArgumentException("Unknown airport " + name
+                    + ".");
+        }
+        return index;
+    }
+
+    /**Gets the routes from a source, from the cache if they are in it.
+     * @param sourceNode the source node
+     * @param threshold the threshold no. of segments, as on the command
+     * line of RouteGenerator
+     * @return the routes from the source
+     */
+    public SourceRoutes routes(int sourceNode, int threshold) {
+        threshold = RouteGenerator.maxSegments(threshold,
+                this.graph.nodeCount());
+        Long key = ((long) sourceNode << Integer.SIZE) | threshold;
+        SourceRoutes routes;
+        synchronized (this.cache) {
+            routes = this.cache.get(key);
+        }
+        if (routes != null) {
+            this.hits.incrementAndGet();
+            return routes;
+        }
+        this.misses.incrementAndGet();
+        routes = this.engines.get().routes(sourceNode, threshold);
+        synchronized (this.cache) {
+            this.cache.put(key, routes);
+        }
+        return routes;
+    }
+
+    /**Finds the route between two airports.
+     * @param sourceNode the source node
+     * @param dest the destination node
+     * @param threshold the threshold no. of segments
+     * @return the nodes on the route, starting with the source; with the
+     * positions of the airports, not always the route in routes.txt where
+     * routes by mileage tie
+     */
+    public int[] path(int sourceNode, int dest, int threshold) {
+        if (this.searches != null) {
+            int[] path = this.searches.get().mileagePath(sourceNode, dest);
+            if (path.length - 1 <= RouteGenerator.maxSegments(threshold,
+                    this.graph.nodeCount())) {
+                this.direct.incrementAndGet();
+                return path;
+            }
+        }
+        return this.routes(sourceNode, threshold).path(dest);
+    }
+
+    /**Finds the route between two airports.
+     * @param origin the name of the source airport
+     * @param dest the name of the destination airport
+     * @param threshold the threshold no. of segments
+     * @return the airports on the route, starting with the origin, as in
+     * routes.txt
+     */
+    public ArrayList<String> route(String origin, String dest,
+            int threshold) {
+        int v = this.indexOf(dest);
+        if (this.searches == null) {
+            return this.routes(this.indexOf(origin), threshold).treeFor(v)
+                    .route(v, this.graph);
+        }
+        ArrayList<String> route = new ArrayList<String>();
+        for (int u : this.path(this.indexOf(origin), v, threshold)) {
+            route.add(this.graph.getValue(u));
+        }
+        return route;
+    }
+
+    /** Gets the no. of queries answered from the cache.
+     * @return the no. of hits
+     */
+    public long getHits() {
+        return this.hits.get();
+    }
+
+    /** Gets the no. of queries which needed a search.
+     * @return the no. of misses
+     */
+    public long getMisses() {
+        return this.misses.get();
+    }
+
+    /** Gets the no. of queries answered by an A* search alone.
+     * @return the no. of queries
+     */
+    public long getDirect() {
+        return this.direct.get();
+    }
+}
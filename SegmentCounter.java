@@ -0,0 +1,338 @@
+import java.io.PrintWriter;
+import java.util.Arrays;
+
+/**Graph of segment counts kept in an open-addressed hash table, for the
+ * frequency graphs of FrequencyGenerator and SkeletonGenerator.
+ *
+ * Only a few percent of the pairs of airports are ever flown as a
+ * segment, so instead of a V by V matrix there is one slot per segment:
+ * a long holding both ends of it (the airport it is flown from in the
+ * high half) and an int holding its count, probed linearly and kept at
+ * most half full. Memory grows with the no. of distinct segments rather
+ * than the square of the no. of airports.
+ *
+ * Sorted, the keys are the segments in row-major order, which is the
+ * order neighbors, printGraphToFile and the skeleton builder read them
+ * in. The sorted keys are kept until a new segment is added; a segment
+ * removed is left in them and skipped.
+ *
+ * @author smsukardi
+ */
+public class SegmentCounter implements Graph {
+
+    /** The key of an empty slot. */
+    private static final long EMPTY = -1L;
+    /** The no. of slots of an empty table. */
+    private static final int MIN_SLOTS = 1024;
+
+    /** The segment in each slot, or EMPTY. */
+    private long[] keys;
+    /** The count of the segment in each slot. */
+    private int[] counts;
+    /** The no. of segments. */
+    private int size;
+    /** The values of the nodes. */
+    private String[] airportNames;
+    /** The segments in row-major order, or null until next needed. */
+    private long[] sorted;
+
+    /**Empty constructor.
+     */
+    public SegmentCounter() {
+    }
+
+    /**Initializes the graph with n vertices and no segments.
+     * @param n the no. of vertices
+     */
+    public void init(int n) {
+        this.keys = new long[MIN_SLOTS];
+        this.counts = new int[MIN_SLOTS];
+        Arrays.fill(this.keys, EMPTY);
+        this.size = 0;
+        this.airportNames = new String[n];
+        this.sorted = null;
+    }
+
+    /** Returns the number of vertices.
+     * @return the number of vertices
+     */
+    public int nodeCount() {
+        return this.airportNames.length;
+    }
+
+    /** Return the current number of edges.
+     * @return the number of edges
+     */
+    public int edgeCount() {
+        return this.size;
+    }
+
+    /** Get the value of node with index v.
+     * @param v the node at which to get the value at
+     * @return the value of the node
+     */
+    public String getValue(int v) {
+        return this.airportNames[v];
+    }
+
+    /** Set the value of node with index v.
+     * @param v the index to set
+     * @param val the value to set it to
+     */
+    public void setValue(int v, String val) {
+        this.airportNames[v] = val;
+    }
+
+    /** Adds a new edge from node v to node w with weight wgt.
+     * @param v the x-coord
+     * @param w the y-coord
+     * @param weight the weight given to the edge
+     */
+    public void addEdge(int v, int w, int weight) {
+        if (weight == 0) {
+            return; // Can't store weight of 0
+        }
+        int slot = this.slotFor(key(v, w));
+        this.counts[slot] = weight;
+    }
+
+    /** Get the weight value for an edge.
+     * @param v the x-coord
+     * @param w the y-coord
+     * @return the weight
+     */
+    public int getWeight(int v, int w) {
+        int slot = this.find(key(v, w));
+        return slot < 0 ? 0 : this.counts[slot];
+    }
+
+    /** Removes the edge from the graph.
+     * @param v the x-coord
+     * @param w the y-coord
+     */
+    public void removeEdge(int v, int w) {
+        int slot = this.find(key(v, w));
+        if (slot >= 0) {
+            this.delete(slot);
+        }
+    }
+
+    /** Returns true iff the graph has the edge.
+     * @param v the x-coord
+     * @param w the y-coord
+     * @return if it has an edge
+     */
+    public boolean hasEdge(int v, int w) {
+        return this.find(key(v, w)) >= 0;
+    }
+
+    /**Increments the edge by 1.
+     * @param v x-coord
+     * @param w y-coord
+     */
+    public void incrementEdge(int v, int w) {
+        this.incrementEdge(v, w, 1);
+    }
+
+    /**Adds an amount to the weight of an edge.
+     * @param v x-coord
+     * @param w y-coord
+     * @param amount the amount to add
+     */
+    public void incrementEdge(int v, int w, int amount) {
+        int slot = this.slotFor(key(v, w));
+        this.counts[slot] += amount;
+        if (this.counts[slot] == 0) {
+            this.delete(slot);
+        }
+    }
+
+    /** Returns an array containing the indicies of the neighbors of v.
+     * @param v the coordinate to find neighbors of
+     * @return an integer array of neighbors
+     */
+    public int[] neighbors(int v) {
+        long[] row = this.segments();
+        int start = lowerBound(row, key(v, 0));
+        int end = lowerBound(row, key(v + 1, 0));
+        int[] temp = new int[end - start];
+        int count = 0;
+        for (int i = start; i < end; i++) {
+            if (this.find(row[i]) >= 0) {
+                temp[count++] = (int) row[i];
+            }
+        }
+        return count == temp.length ? temp : Arrays.copyOf(temp, count);
+    }
+
+    /**Returns the segments in row-major order, each as the airport it is
+     * flown from in the high half of a long and the airport it is flown
+     * to in the low half. Segments removed since the last segment was
+     * added may still be in it.
+     * @return the segments; not to be changed
+     */
+    public long[] segments() {
+        if (this.sorted == null) {
+            long[] row = new long[this.size];
+            int count = 0;
+            for (long key : this.keys) {
+                if (key != EMPTY) {
+                    row[count++] = key;
+                }
+            }
+            Arrays.sort(row);
+            this.sorted = row;
+        }
+        return this.sorted;
+    }
+
+    /**Prints the graph to a file, as GraphMatrix prints it.
+     * @param outputFile the file to print to
+     */
+    public void printGraphToFile(PrintWriter outputFile) {
+        int n = this.airportNames.length;
+        long[] row = this.segments();
+        int next = 0;
+        //4 spaces for each row and column; right justified
+        outputFile.print("    ");
+        for (int i = 0; i < n; i++) {
+            outputFile.printf("%-4s", this.airportNames[i]);
+        }
+        outputFile.println();
+        for (int i = 0; i < n; i++) {
+            outputFile.printf("%-4s", this.airportNames[i]);
+            for (int j = 0; j < n; j++) {
+                int weight = 0;
+                if (next < row.length && row[next] == key(i, j)) {
+                    weight = this.getWeight(i, j);
+                    next++;
+                }
+                outputFile.printf("%-4d", weight);
+            }
+            if (i != n - 1) {
+                outputFile.println();
+            }
+        }
+    }
+
+    /**Packs a segment into a key.
+     * @param v the airport it is flown from
+     * @param w the airport it is flown to
+     * @return the key
+     */
+    private static long key(int v, int w) {
+        return ((long) v << 32) | w;
+    }
+
+    /**Finds the first slot to try for a key.
+     * @param key the key
+     * @param mask the no. of slots less 1
+     * @return the slot
+     */
+    private static int slotOf(long key, int mask) {
+        return (int) ((key * 0x9E3779B97F4A7C15L) >>> 32) & mask;
+    }
+
+    /**Finds the slot of a segment.
+     * @param key the segment
+     * @return its slot, or -1 if it has none
+     */
+    private int find(long key) {
+        int mask = this.keys.length - 1;
+        int slot = slotOf(key, mask);
+        while (this.keys[slot] != key) {
+            if (this.keys[slot] == EMPTY) {
+                return -1;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    /**Finds the slot of a segment, adding it with a count of 0 if it
+     * has none.
+     * @param key the segment
+     * @return its slot
+     */
+    private int slotFor(long key) {
+        int mask = this.keys.length - 1;
+        int slot = slotOf(key, mask);
+        while (this.keys[slot] != key) {
+            if (this.keys[slot] == EMPTY) {
+                if (2 * (this.size + 1) > this.keys.length) {
+                    this.grow();
+                    return this.slotFor(key);
+                }
+                this.keys[slot] = key;
+                this.counts[slot] = 0;
+                this.size++;
+                this.sorted = null;
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    /**Empties a slot, moving back any segment after it which would no
+     * longer be found past the gap.
+     * @param slot the slot
+     */
+    private void delete(int slot) {
+        int mask = this.keys.length - 1;
+        int hole = slot;
+        int next = (hole + 1) & mask;
+        while (this.keys[next] != EMPTY) {
+            int home = slotOf(this.keys[next], mask);
+            if (((next - home) & mask) >= ((next - hole) & mask)) {
+                this.keys[hole] = this.keys[next];
+                this.counts[hole] = this.counts[next];
+                hole = next;
+            }
+            next = (next + 1) & mask;
+        }
+        this.keys[hole] = EMPTY;
+        this.counts[hole] = 0;
+        this.size--;
+    }
+
+    /**Doubles the no. of slots.
+     */
+    private void grow() {
+        long[] oldKeys = this.keys;
+        int[] oldCounts = this.counts;
+        this.keys = new long[2 * oldKeys.length];
+        this.counts = new int[2 * oldKeys.length];
+        Arrays.fill(this.keys, EMPTY);
+        int mask = this.keys.length - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) {
+                int slot = slotOf(oldKeys[i], mask);
+                while (this.keys[slot] != EMPTY) {
+                    slot = (slot + 1) & mask;
+                }
+                this.keys[slot] = oldKeys[i];
+                this.counts[slot] = oldCounts[i];
+            }
+        }
+    }
+
+    /**Finds the first sorted key at or above a key.
+     * @param row the sorted keys
+     * @param key the key
+     * @return its index, or row.length if every key is below it
+     */
+    private static int lowerBound(long[] row, long key) {
+        int low = 0;
+        int high = row.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (row[mid] < key) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+}
@@ -0,0 +1,196 @@
+import java.io.PrintWriter;
+import java.util.ArrayList;
+
+/**The result of a single-source search: for every airport, the airport
+ * before it on the path from the source, its distance and its number of
+ * segments. The paths themselves are only rebuilt when they are asked for.
+ *
+ * An airport which cannot be reached has no predecessor, and its path is
+ * just the source airport, as in the original path lists.
+ *
+ * @author smsukardi
+ */
+public class ShortestPathTree {
+
+    /** The source node. */
+    private int source;
+    /** The node before each node on its path, or -1 if there is none. */
+    private int[] predecessor;
+    /** The no. of segments on the path to each node. */
+    private int[] hops;
+    /** The distance to each node. */
+    private int[] distances;
+
+    /**Constructor. Every node starts out at distance INFINITY with no
+     * predecessor, apart from the source which is at distance 0.
+     * @param sourceNode the source node
+     * @param distances the array to store distances in
+     */
+    public ShortestPathTree(int sourceNode, int[] distances) {
+        this.source = sourceNode;
+        this.predecessor = new int[distances.length];
+        this.hops = new int[distances.length];
+        this.distances = distances;
+        for (int i = 0; i < distances.length; i++) {
+            this.predecessor[i] = -1;
+            this.distances[i] = Dijkstra.INFINITY;
+        }
+        this.distances[sourceNode] = 0;
+    }
+
+    /**Rebuilds a tree from the predecessor of every node, as stored in a
+     * RouteFile. The no. of segments to each node is worked out again;
+     * the distances are not stored, so every node but the source is left
+     * at distance INFINITY.
+     * @param sourceNode the source node
+     * @param predecessor the node before each node, or -1 if there is none;
+     * kept by the tree
+     * @return the tree
+     */
+    public static ShortestPathTree fromPredecessors(int sourceNode,
+            int[] predecessor) {
+        ShortestPathTree tree = new ShortestPathTree(sourceNode,
+                new int[predecessor.length]);
+        tree.predecessor = predecessor;
+        int[] known = new int[predecessor.length];
+        int[] stack = new int[predecessor.length];
+        known[sourceNode] = 1;
+        for (int v = 0; v < predecessor.length; v++) {
+            //climbs to a node whose no. of segments is known, then
+            //counts back down
+            int size = 0;
+            int u = v;
+            while (known[u] == 0 && predecessor[u] >= 0) {
+                stack[size++] = u;
+                known[u] = -1;
+                u = predecessor[u];
+            }
+            if (known[u] == -1) {
+                throw new IllegalArgumentException("The predecessors of "
+                        + "source " + sourceNode + " form a cycle.");
+            }
+            while (size > 0) {
+                u = stack[--size];
+                tree.hops[u] = tree.hops[predecessor[u]] + 1;
+                known[u] = 1;
+            }
+        }
+        return tree;
+    }
+
+    /**Records that the best path found so far to v goes through u.
+     * @param v the node reached
+     * @param u the node before it, whose path is already final
+     * @param distance the distance to v through u
+     */
+    public void setPath(int v, int u, int distance) {
+        this.predecessor[v] = u;
+        this.hops[v] = this.hops[u] + 1;
+        this.distances[v] = distance;
+    }
+
+    /** Gets the source node.
+     * @return the source node
+     */
+    public int getSource() {
+        return this.source;
+    }
+
+    /** Gets the no. of nodes in the tree.
+     * @return the no. of nodes
+     */
+    public int nodeCount() {
+        return this.predecessor.length;
+    }
+
+    /** Gets the node before v on its path.
+     * @param v the node
+     * @return the previous node, or -1 for the source or an unreached node
+     */
+    public int getPredecessor(int v) {
+        return this.predecessor[v];
+    }
+
+    /** Gets the no. of segments on the path to v.
+     * @param v the node
+     * @return the no. of segments
+     */
+    public int getHops(int v) {
+        return this.hops[v];
+    }
+
+    /** Gets the distance to v.
+     * @param v the node
+     * @return the distance, or INFINITY if v was not reached
+     */
+    public int getDistance(int v) {
+        return this.distances[v];
+    }
+
+    /**Rebuilds the path from the source to v.
+     * @param v the destination node
+     * @return the nodes on the path, starting with the source
+     */
+    public int[] path(int v) {
+        int[] path = new int[this.hops[v] + 1];
+        path[0] = this.source;
+        for (int i = this.hops[v]; i > 0; i--) {
+            path[i] = v;
+            v = this.predecessor[v];
+        }
+        return path;
+    }
+
+    /**Rebuilds the path from the source to v as airport names.
+     * @param v the destination node
+     * @param yourGraph the graph holding the airport names
+     * @return an ArrayList of the airports passed, starting with the source
+     */
+    public ArrayList<String> route(int v, Graph yourGraph) {
+        ArrayList<String> route = new ArrayList<String>(this.hops[v] + 1);
+        for (int node : this.path(v)) {
+            route.add(yourGraph.getValue(node));
+        }
+        return route;
+    }
+
+    /**Rebuilds the paths to every node as airport names.
+     * @param yourGraph the graph holding the airport names
+     * @return An array of ArrayList of airports, one for each destination
+     */
+    @SuppressWarnings("unchecked")
+    public ArrayList<String>[] routes(Graph yourGraph) {
+        ArrayList<String>[] paths = new ArrayList[this.predecessor.length];
+        for (int i = 0; i < paths.length; i++) {
+            paths[i] = this.route(i, yourGraph);
+        }
+        return paths;
+    }
+
+    /**Appends the path to v in the form A->B->C.
+     * @param v the destination node
+     * @param yourGraph the graph holding the airport names
+     * @param output the text to append to
+     */
+    public void appendRoute(int v, Graph yourGraph, StringBuilder output) {
+        int[] path = this.path(v);
+        for (int j = 0; j < path.length - 1; j++) {
+            output.append(yourGraph.getValue(path[j])).append("->");
+        }
+        output.append(yourGraph.getValue(path[path.length - 1]));
+    }
+
+    /**Prints the path to v in the form A->B->C.
+     * @param v the destination node
+     * @param yourGraph the graph holding the airport names
+     * @param output the file to print to
+     */
+    public void printRoute(int v, Graph yourGraph, PrintWriter output) {
+        int[] path = this.path(v);
+        for (int j = 0; j < path.length - 1; j++) {
+            output.print(yourGraph.getValue(path[j]));
+            output.print("->");
+        }
+        output.print(yourGraph.getValue(path[path.length - 1]));
+    }
+}
@@ -0,0 +1,304 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.IntConsumer;
+
+/**Builds a skeleton (a maximum spanning forest) from a list of flight
+ * frequencies using Kruskal's algorithm over primitive arrays.
+ *
+ * The flights are sorted highest frequency first by a stable
+ * O(E log E) sort, so flights with the same frequency keep the order they
+ * were listed in, as they did with SkeletonGenerator's bubble sort. The
+ * search stops as soon as every airport has been connected.
+ *
+ * Boruvka's algorithm finds the same skeleton on several threads: see
+ * boruvka.
+ *
+ * @author smsukardi
+ */
+public final class SkeletonBuilder {
+
+    /** The key of a component with no flight out of it. */
+    private static final long NONE = Long.MAX_VALUE;
+    /** The fewest flights or airports worth a task of their own. */
+    private static final int MIN_TASK = 4096;
+    /** The no. of tasks each thread gets, so the threads finish close
+     * together. */
+    private static final int TASKS_PER_THREAD = 4;
+
+    /**Empty constructor.
+     */
+    private SkeletonBuilder() {
+    }
+
+    /**Sorts flights highest frequency first, keeping flights with the same
+     * frequency in the order they were listed.
+     *
+     * @param frequency the frequency of each flight, all positive
+     * @param count the no. of flights
+     * @return the indices of the flights, in sorted order
+     */
+    public static int[] sortByFrequency(int[] frequency, int count) {
+        //sorts on the frequency (highest first) then the index, packed
+        //into one long so that the order is unique and so stable
+        long[] keys = new long[count];
+        for (int i = 0; i < count; i++) {
+            keys[i] = ((long) (Integer.MAX_VALUE - frequency[i]) << 32) | i;
+        }
+        Arrays.sort(keys);
+        int[] order = new int[count];
+        for (int i = 0; i < count; i++) {
+            order[i] = (int) keys[i];
+        }
+        return order;
+    }
+
+    /**Finds the flights in the skeleton.
+     *
+     * @param amtOfAirports the amount of airports
+     * @param from the start airport of each flight
+     * @param to the destination airport of each flight
+     * @param frequency the frequency of each flight, all positive
+     * @param count the no. of flights
+     * @return the indices of the flights in the skeleton, in the order
+     * they were added
+     */
+    public static int[] kruskal(int amtOfAirports, int[] from, int[] to,
+            int[] frequency, int count) {
+        int[] order = sortByFrequency(frequency, count);
+        UnionFind rootsaver = new UnionFind(amtOfAirports);
+        int[] chosen = new int[Math.max(amtOfAirports - 1, 0)];
+        int size = 0;
+        //a spanning forest has at most one flight fewer than airports
+        for (int i = 0; i < count && size < chosen.length; i++) {
+            int flight = order[i];
+            if (rootsaver.union(from[flight], to[flight])) {
+                chosen[size++] = flight;
+            }
+        }
+        return Arrays.copyOf(chosen, size);
+    }
+
+    /**Finds the flights in the skeleton with Boruvka's algorithm, on
+     * several threads.
+     *
+     * In each round every tree of the forest so far picks its best flight
+     * to another tree, and all of these are added at once. The best
+     * flight is the first in the order sortByFrequency gives, which is
+     * compared on the fly by packing the frequency and index into one
+     * long, so the flights are never sorted. No two flights are equal in
+     * this order, so there is only one maximum spanning forest, and both
+     * this and kruskal find it. Each round the trees pick their flights
+     * in parallel, an atomic min per tree, then join along them through
+     * a ConcurrentUnionFind; the flights now inside one tree are then
+     * dropped. There are at most log2(V) rounds.
+     *
+     * @param amtOfAirports the amount of airports
+     * @param from the start airport of each flight
+     * @param to the destination airport of each flight
+     * @param frequency the frequency of each flight, all positive
+     * @param count the no. of flights
+     * @param parallelism the no. of threads to use
+     * @return the indices of the flights in the skeleton, in the order
+     * kruskal would add them
+     */
+    public static int[] boruvka(int amtOfAirports, final int[] from,
+            final int[] to, final int[] frequency, int count,
+            int parallelism) {
+        final ConcurrentUnionFind components =
+                new ConcurrentUnionFind(amtOfAirports);
+        final AtomicLongArray best = new AtomicLongArray(amtOfAirports);
+        final boolean[] chosen = new boolean[count];
+        //the flights which may still join two trees
+        final int[] active = new int[count];
+        int activeCount = 0;
+        for (int i = 0; i < count; i++) {
+            if (from[i] != to[i]) {
+                active[activeCount++] = i;
+            }
+        }
+
+        ForkJoinPool pool = null;
+        if (parallelism > 1) {
+            pool = new ForkJoinPool(parallelism);
+        }
+        try {
+            while (activeCount > 0) {
+                final int flights = activeCount;
+                //each tree picks its best flight to another tree
+                forEachTask(pool, parallelism, amtOfAirports, (lo, hi) -> {
+                    for (int v = lo; v < hi; v++) {
+                        best.set(v, NONE);
+                    }
+                });
+                forEachTask(pool, parallelism, flights, (lo, hi) -> {
+                    for (int i = lo; i < hi; i++) {
+                        int flight = active[i];
+                        int root1 = components.find(from[flight]);
+                        int root2 = components.find(to[flight]);
+                        if (root1 != root2) {
+                            long key = key(frequency[flight], flight);
+                            lower(best, root1, key);
+                            lower(best, root2, key);
+                        }
+                    }
+                });
+                //joins the trees along them; a flight picked by both of
+                //its trees only joins them once
+                forEachTask(pool, parallelism, amtOfAirports, (lo, hi) -> {
+                    for (int v = lo; v < hi; v++) {
+                        long key = best.get(v);
+                        if (key != NONE) {
+                            int flight = (int) key;
+                            if (components.union(from[flight],
+                                    to[flight])) {
+                                chosen[flight] = true;
+                            }
+                        }
+                    }
+                });
+                //drops the flights now inside one tree, each task keeping
+                //its own at the start of its range
+                int tasks = taskCount(parallelism, flights);
+                final int[] kept = new int[tasks];
+                forEachTask(pool, tasks, task -> {
+                    int lo = bound(task, tasks, flights);
+                    int hi = bound(task + 1, tasks, flights);
+                    int size = lo;
+                    for (int i = lo; i < hi; i++) {
+                        int flight = active[i];
+                        if (!components.find(from[flight], to[flight])) {
+                            active[size++] = flight;
+                        }
+                    }
+                    kept[task] = size - lo;
+                });
+                activeCount = 0;
+                for (int task = 0; task < tasks; task++) {
+                    System.arraycopy(active, bound(task, tasks, flights),
+                            active, activeCount, kept[task]);
+                    activeCount += kept[task];
+                }
+            }
+        } finally {
+            if (pool != null) {
+                pool.shutdownNow();
+            }
+        }
+
+        //lists the flights in the order kruskal adds them
+        int size = 0;
+        long[] keys = new long[Math.max(amtOfAirports - 1, 0)];
+        for (int i = 0; i < count; i++) {
+            if (chosen[i]) {
+                keys[size++] = key(frequency[i], i);
+            }
+        }
+        Arrays.sort(keys, 0, size);
+        int[] skeleton = new int[size];
+        for (int i = 0; i < size; i++) {
+            skeleton[i] = (int) keys[i];
+        }
+        return skeleton;
+    }
+
+    /**Packs a flight into a key which is lower the earlier sortByFrequency
+     * puts it.
+     *
+     * @param frequency the frequency of the flight
+     * @param flight the index of the flight
+     * @return the key
+     */
+    private static long key(int frequency, int flight) {
+        return ((long) (Integer.MAX_VALUE - frequency) << 32) | flight;
+    }
+
+    /**Lowers a tree's best key to a key if it is lower, atomically.
+     *
+     * @param best the best key of each tree
+     * @param root the tree
+     * @param key the key
+     */
+    private static void lower(AtomicLongArray best, int root, long key) {
+        long old = best.get(root);
+        while (key < old && !best.compareAndSet(root, old, key)) {
+            old = best.get(root);
+        }
+    }
+
+    /**Gets the no. of tasks to split some work into.
+     *
+     * @param parallelism the no. of threads
+     * @param size the no. of items
+     * @return the no. of tasks, at least 1
+     */
+    private static int taskCount(int parallelism, int size) {
+        int tasks = Math.min(parallelism * TASKS_PER_THREAD,
+                size / MIN_TASK);
+        return Math.max(1, tasks);
+    }
+
+    /**Gets where a task's items start.
+     *
+     * @param task the task, or the no. of tasks for the end
+     * @param tasks the no. of tasks
+     * @param size the no. of items
+     * @return the index of its first item
+     */
+    private static int bound(int task, int tasks, int size) {
+        return (int) ((long) size * task / tasks);
+    }
+
+    /**Does some work over a range of items, split into tasks.
+     *
+     * @param pool the pool, or null to run on this thread
+     * @param parallelism the no. of threads
+     * @param size the no. of items
+     * @param work the work for the items from lo up to hi
+     */
+    private static void forEachTask(ForkJoinPool pool, int parallelism,
+            final int size, final RangeWork work) {
+        final int tasks = taskCount(parallelism, size);
+        forEachTask(pool, tasks, task -> work.run(
+                bound(task, tasks, size), bound(task + 1, tasks, size)));
+    }
+
+    /**Runs some work for every task, on the pool if there is one, and
+     * waits for all of it.
+     *
+     * @param pool the pool, or null to run on this thread
+     * @param tasks the no. of tasks
+     * @param work the work for a task, given its index
+     */
+    private static void forEachTask(ForkJoinPool pool, int tasks,
+            IntConsumer work) {
+        if (pool == null || tasks == 1) {
+            for (int task = 0; task < tasks; task++) {
+                work.accept(task);
+            }
+            return;
+        }
+        ArrayList<ForkJoinTask<?>> running =
+                new ArrayList<ForkJoinTask<?>>(tasks);
+        for (int task = 0; task < tasks; task++) {
+            final int index = task;
+            running.add(pool.submit(() -> work.accept(index)));
+        }
+        for (ForkJoinTask<?> task : running) {
+            task.join();
+        }
+    }
+
+    /** Work over a range of items. */
+    private interface RangeWork {
+
+        /**Does the work.
+         *
+         * @param lo the first item
+         * @param hi one past the last item
+         */
+        void run(int lo, int hi);
+    }
+}
@@ -1,8 +1,8 @@
 import java.io.File;
 import java.io.FileNotFoundException;
+import java.io.IOException;
 import java.io.PrintWriter;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.Scanner;
 
 /**Creates a skeleton subset of flight segments that
@@ -12,6 +12,9 @@ import java.util.Scanner;
  * @author smsukardi
  */
 public final class SkeletonGenerator {
+
+    /** The file a skeleton built with -mapped is kept in. */
+    public static final String SKELETON_FILE = "skeleton.map";
     
     /**Empty constructor.
      */
@@ -21,14 +24,21 @@ public final class SkeletonGenerator {
     /**Main method which generates two files: one with the most connected 
      * flights with no cycles, and one with flight frequencies.
      * 
-     * @param args arguments
-     * @throws FileNotFoundException the exception
+     * @param args arguments (frequencies.txt, or a frequencies.map written
+     * by FrequencyGenerator -mapped, either as a grid or an edge list),
+     * then -sparse or -mapped, -edges to write skeleton.txt as an edge
+     * list, and -threads # to build the skeleton on # threads
+     * @throws IOException if a file cannot be read or written
      */
-    public static void main(String[] args) throws FileNotFoundException {
+    public static void main(String[] args) throws IOException {
         String fileName = "";
+        boolean sparse = false;
+        boolean mapped = false;
+        boolean edges = false;
+        int parallelism = 1;
 
         //Ensures correct argument length
-        if (args.length != 1) {
+        if (args.length < 1) {
             System.out.println("Please enter a .txt file containing "
                     + "flight information.");
             return;
@@ -36,83 +46,276 @@ public final class SkeletonGenerator {
 
         //stores the arguments in the variables
         fileName = args[0];
+        //reads the optional flags following the file name
+        for (int i = 1; i < args.length; i++) {
+            if (args[i].equals("-sparse")) {
+                sparse = true;
+            } else if (args[i].equals("-mapped")) {
+                mapped = true;
+            } else if (args[i].equals("-edges")) {
+                edges = true;
+            } else if (args[i].equals("-threads") && i + 1 < args.length) {
+                parallelism = RouteRunner.parallelism(
+                        Integer.parseInt(args[++i]));
+            }
+        }
 
+        Graph yourGraph = readFrequencies(fileName, sparse);
+
+        //Builds the skeleton, keeping only its flights in the old graph
+        Graph skeleton;
+        if (mapped) {
+            skeleton = buildSkeleton(yourGraph,
+                    new MappedGraph(SKELETON_FILE, 1), parallelism);
+        } else {
+            skeleton = buildSkeleton(yourGraph, sparse, parallelism);
+        }
+
+        //Passes these two graphs into a method which prints the 
+        //skeleton and flight freq information to a file.
+        printToFile(skeleton, yourGraph, edges);
+        if (skeleton instanceof MappedGraph) {
+            ((MappedGraph) skeleton).close();
+        }
+        if (yourGraph instanceof MappedGraph) {
+            ((MappedGraph) yourGraph).close();
+        }
+    }
+
+    /**Reads a frequency graph from a frequencies.txt, as a grid or an
+     * edge list, or from a frequencies.map.
+     * 
+     * @param fileName the file to read
+     * @param sparse whether to use a GraphCSR instead of a SegmentCounter
+     * @return the frequency graph
+     * @throws IOException if the file cannot be read
+     */
+    public static Graph readFrequencies(String fileName, boolean sparse)
+            throws IOException {
+        if (MappedGraph.isMappedGraph(fileName)) {
+            //maps the frequencies copy-on-write, as the flights not in the
+            //skeleton are removed from them
+            return MappedGraph.open(fileName, false);
+        }
+        if (EdgeListFile.isEdgeList(fileName)) {
+            return EdgeListFile.read(fileName, newFrequencyGraph(sparse));
+        }
         //initializes the first scanner 
         Scanner firstRead = new Scanner(new File(fileName));
-                
+
         //Retrieves the first line containing airport information
         String[] airports = firstRead.nextLine().trim().split("\\s+");
         int amtOfAirports = airports.length;
 
         //constructs and initializes the graph
-        GraphMatrix yourGraph = new GraphMatrix();
+        Graph yourGraph = newFrequencyGraph(sparse);
         yourGraph.init(amtOfAirports);
-        
-        //constructs and initializes a graph which will illustrate connectivity
+        for (int i = 0; i < amtOfAirports; i++) {
+            yourGraph.setValue(i, airports[i]);
+        }
+
+        //reads the file and places the information into the graph
+        readFile(firstRead, yourGraph);
+        firstRead.close(); //closes the scanner
+        return yourGraph;
+    }
+
+    /**Builds the skeleton of a frequency graph: the flights with the
+     * highest frequencies which connect the airports without any cycles.
+     * Flights not in the skeleton are removed from the frequency graph.
+     * 
+     * @param yourGraph the frequency graph
+     * @param sparse whether to use a GraphCSR instead of a GraphMatrix
+     * @return the skeleton, with weight 1 each way for each flight in it
+     */
+    public static Graph buildSkeleton(Graph yourGraph, boolean sparse) {
+        return buildSkeleton(yourGraph, newGraph(sparse), 1);
+    }
+
+    /**Builds the skeleton of a frequency graph on several threads.
+     * 
+     * @param yourGraph the frequency graph
+     * @param sparse whether to use a GraphCSR instead of a GraphMatrix
+     * @param parallelism the no. of threads to use
+     * @return the skeleton, with weight 1 each way for each flight in it
+     */
+    public static Graph buildSkeleton(Graph yourGraph, boolean sparse,
+            int parallelism) {
+        return buildSkeleton(yourGraph, newGraph(sparse), parallelism);
+    }
+
+    /**Builds the skeleton of a frequency graph into a given graph, such as
+     * a MappedGraph.
+     * 
+     * @param yourGraph the frequency graph
+     * @param skeleton the graph to build the skeleton in; initialized here
+     * @return the skeleton, with weight 1 each way for each flight in it
+     */
+    public static Graph buildSkeleton(Graph yourGraph, Graph skeleton) {
+        return buildSkeleton(yourGraph, skeleton, 1);
+    }
+
+    /**Builds the skeleton of a frequency graph into a given graph, on
+     * several threads with Boruvka's algorithm if more than one is given.
+     * The skeleton is the same either way.
+     * 
+     * @param yourGraph the frequency graph
+     * @param skeleton the graph to build the skeleton in; initialized here
+     * @param parallelism the no. of threads to use
+     * @return the skeleton, with weight 1 each way for each flight in it
+     */
+    public static Graph buildSkeleton(Graph yourGraph, Graph skeleton,
+            int parallelism) {
+        int amtOfAirports = yourGraph.nodeCount();
+
+        //initializes a graph which will illustrate connectivity
         //for outputCtable.txt
-        GraphMatrix skeleton = new GraphMatrix();
         skeleton.init(amtOfAirports);
         
-        //constructs an array list of paths
-        ArrayList<Pair> pathPairs = new ArrayList<Pair>();
-        //stores in a hashmap all airport-pairs
-        HashMap<String, Integer> airportIndex = new HashMap<String, Integer>();
-        
-        //initializes the airport names in the two graphs
+        //initializes the airport names in the skeleton
         for (int i = 0; i < amtOfAirports; i++) {
-            yourGraph.setValue(i, airports[i]);
-            skeleton.setValue(i, airports[i]);
-            airportIndex.put(airports[i], i);
+            skeleton.setValue(i, yourGraph.getValue(i));
         }
-        
-        //reads the file and places the information into the two graphs
-        readFile(firstRead, yourGraph, pathPairs);
-        firstRead.close(); //closes the scanner
 
-        //sorts all the paths by largest-first
-        sort(pathPairs);
-
-        //Constructs a unionfind to generate the skeleton
-        UnionFind rootsaver = new UnionFind(amtOfAirports);
-
-        //Goes through all pairs, which are sorted largest-first
-        while (!pathPairs.isEmpty()) {
-            //takes the top pair off
-            Pair max = pathPairs.remove(0);            
-            //Retrieves the start and end coordinates
-            int connectedX = airportIndex.get(max.getStart());
-            int connectedY = airportIndex.get(max.getDest());
-            //If a union can be performed, adds the edge to the adjacency matrix
-            if (rootsaver.union(connectedX, connectedY)) {
-                skeleton.addEdge(connectedX, connectedY, 1);
-                skeleton.addEdge(connectedY, connectedX, 1);
+        //lists the flights with their frequencies, row by row
+        if (yourGraph instanceof SegmentCounter) {
+            return buildSkeleton((SegmentCounter) yourGraph, skeleton,
+                    parallelism);
+        }
+        int count = 0;
+        for (int i = 0; i < amtOfAirports; i++) {
+            count += yourGraph.neighbors(i).length;
+        }
+        int[] from = new int[count];
+        int[] to = new int[count];
+        int[] frequency = new int[count];
+        count = 0;
+        for (int i = 0; i < amtOfAirports; i++) {
+            for (int j : yourGraph.neighbors(i)) {
+                if (yourGraph.getWeight(i, j) > 0) {
+                    from[count] = i;
+                    to[count] = j;
+                    frequency[count] = yourGraph.getWeight(i, j);
+                    count++;
+                }
             }
         }
+
+        //Adds the flights chosen by Kruskal's algorithm, largest-first
+        for (int flight : chooseFlights(amtOfAirports, from, to, frequency,
+                count, parallelism)) {
+            skeleton.addEdge(from[flight], to[flight], 1);
+            skeleton.addEdge(to[flight], from[flight], 1);
+        }
         //Removes paths in the old graph for those not in the skeleton
         for (int i = 0; i < amtOfAirports; i++) {
-            for (int j = 0; j < amtOfAirports; j++) {
+            for (int j : yourGraph.neighbors(i)) {
                 if (skeleton.getWeight(i, j) == 0) {
                     yourGraph.removeEdge(i, j);
                 }
             }
         }
-        //Passes these two graphs into a method which prints the 
-        //skeleton and flight freq information to a file.
-        printToFile(skeleton, yourGraph);       
+        return skeleton;
+    }
+
+    /**Builds the skeleton of a SegmentCounter, listing its segments in
+     * the same row-major order without going through every row.
+     * 
+     * @param counter the frequency graph
+     * @param skeleton the graph to build the skeleton in, initialized
+     * @param parallelism the no. of threads to use
+     * @return the skeleton
+     */
+    private static Graph buildSkeleton(SegmentCounter counter,
+            Graph skeleton, int parallelism) {
+        long[] segments = counter.segments();
+        int[] from = new int[segments.length];
+        int[] to = new int[segments.length];
+        int[] frequency = new int[segments.length];
+        int count = 0;
+        for (long segment : segments) {
+            int i = (int) (segment >>> 32);
+            int j = (int) segment;
+            int weight = counter.getWeight(i, j);
+            if (weight > 0) {
+                from[count] = i;
+                to[count] = j;
+                frequency[count] = weight;
+                count++;
+            }
+        }
+
+        //Adds the flights chosen by Kruskal's algorithm, largest-first
+        for (int flight : chooseFlights(counter.nodeCount(), from, to,
+                frequency, count, parallelism)) {
+            skeleton.addEdge(from[flight], to[flight], 1);
+            skeleton.addEdge(to[flight], from[flight], 1);
+        }
+        //Removes the segments not in the skeleton
+        for (int k = 0; k < count; k++) {
+            if (skeleton.getWeight(from[k], to[k]) == 0) {
+                counter.removeEdge(from[k], to[k]);
+            }
+        }
+        return skeleton;
+    }
+
+    /**Finds the flights in the skeleton, with Kruskal's algorithm on one
+     * thread or Boruvka's on several.
+     * 
+     * @param amtOfAirports the amount of airports
+     * @param from the start airport of each flight
+     * @param to the destination airport of each flight
+     * @param frequency the frequency of each flight
+     * @param count the no. of flights
+     * @param parallelism the no. of threads to use
+     * @return the flights in the skeleton, highest frequency first
+     */
+    private static int[] chooseFlights(int amtOfAirports, int[] from,
+            int[] to, int[] frequency, int count, int parallelism) {
+        if (parallelism > 1) {
+            return SkeletonBuilder.boruvka(amtOfAirports, from, to,
+                    frequency, count, parallelism);
+        }
+        return SkeletonBuilder.kruskal(amtOfAirports, from, to, frequency,
+                count);
+    }
+
+    /**Constructs an empty graph of the chosen implementation.
+     * 
+     * @param sparse whether to use a GraphCSR instead of a GraphMatrix
+     * @return the graph
+     */
+    private static Graph newGraph(boolean sparse) {
+        if (sparse) {
+            return new GraphCSR();
+        }
+        return new GraphMatrix();
     }
     
-    /**Reads in the file to a GraphMatrix and an array of flights.
+    /**Constructs an empty frequency graph, keeping only the flights flown
+     * rather than a matrix of every pair.
+     * 
+     * @param sparse whether to use a GraphCSR instead of a SegmentCounter
+     * @return the graph
+     */
+    private static Graph newFrequencyGraph(boolean sparse) {
+        if (sparse) {
+            return new GraphCSR();
+        }
+        return new SegmentCounter();
+    }
+
+    /**Reads in the file to a graph of flight frequencies.
      * 
      * @param firstRead the scanner
-     * @param yourGraph the unpopulated GraphMatrix
-     * @param pathPairs an array of flights
+     * @param yourGraph the unpopulated graph
      */
-    private static void readFile(Scanner firstRead, GraphMatrix yourGraph,
-            ArrayList<Pair> pathPairs) {
+    private static void readFile(Scanner firstRead, Graph yourGraph) {
         int counter = 0;
         boolean emptyLine = false;
-        //reads the file once to get the name of airports, as well as 
-        //specific flight information and their frequency
+        //reads the file once to get the specific flight information
+        //and their frequency
         while (firstRead.hasNextLine() && !emptyLine) {
             String next = firstRead.nextLine();            
             String[] split = next.split("\\s+");
@@ -121,16 +324,13 @@ public final class SkeletonGenerator {
                 emptyLine = true;
             } else {                
                 for (int i = 1; i < split.length; i++) {
-                    int x = counter / yourGraph.nodeCount();
-                    int y = counter % yourGraph.nodeCount();
-                    yourGraph.addEdge(x, y, Integer.parseInt(split[i]));
-                    counter++;
-                    
-                    if (Integer.parseInt(split[i]) > 0) {
-                        pathPairs.add(new Pair(yourGraph.getValue(x), 
-                                yourGraph.getValue(y), 
-                                Integer.parseInt(split[i])));
+                    int weight = Integer.parseInt(split[i]);
+                    //most pairs are not flown
+                    if (weight != 0) {
+                        yourGraph.addEdge(counter / yourGraph.nodeCount(),
+                                counter % yourGraph.nodeCount(), weight);
                     }
+                    counter++;
                 }
             }       
         }         
@@ -142,28 +342,68 @@ public final class SkeletonGenerator {
      * @param yourGraph the graph
      * @throws FileNotFoundException the exception
      */
-    private static void printToFile(GraphMatrix skeleton,
-            GraphMatrix yourGraph) throws FileNotFoundException {
+    public static void printToFile(Graph skeleton,
+            Graph yourGraph) throws FileNotFoundException {
+        printToFile(skeleton, yourGraph, false);
+    }
+
+    /**Prints the information associated with the graphs to two files,
+     * with skeleton.txt as an edge list if asked for.
+     * 
+     * @param skeleton the skeleton graph
+     * @param yourGraph the graph
+     * @param edges whether to print the skeleton as an edge list
+     * @throws FileNotFoundException the exception
+     */
+    public static void printToFile(Graph skeleton, Graph yourGraph,
+            boolean edges) throws FileNotFoundException {
         
         //prints the skeleton to a file
-        PrintWriter output1 = new PrintWriter("skeleton.txt");
-        skeleton.printGraphToFile(output1);
-        output1.close();
+        printSkeleton(skeleton, edges);
         
-        //prints the airport frequencies to a file
-        PrintWriter output2 = new PrintWriter("airportFrequencies.txt");
-        //Constructs and array of pairs to store frequencies & airport names
-        ArrayList<Pair> airportPairs = new ArrayList<Pair>();       
         //Stores the frequencies in an integer array
         int[] frequency = new int[yourGraph.nodeCount()]; 
         
-        //Computes the frequencies
+        //Computes the frequencies, counting each flight at both ends
         for (int n = 0; n < frequency.length; n++) {
-            for (int i = 0; i < frequency.length; i++) {
-                frequency[n] += yourGraph.getWeight(n, i) 
-                        + yourGraph.getWeight(i, n);
+            for (int i : yourGraph.neighbors(n)) {
+                frequency[n] += yourGraph.getWeight(n, i);
+                frequency[i] += yourGraph.getWeight(n, i);
             }
         }
+        printAirportFrequencies(yourGraph, frequency);
+    }
+
+    /**Prints a skeleton to skeleton.txt.
+     * 
+     * @param skeleton the skeleton graph
+     * @param edges whether to print it as an edge list
+     * @throws FileNotFoundException if the file cannot be written
+     */
+    public static void printSkeleton(Graph skeleton, boolean edges)
+            throws FileNotFoundException {
+        PrintWriter output1 = new PrintWriter("skeleton.txt");
+        if (edges) {
+            EdgeListFile.write(skeleton, output1);
+        } else {
+            skeleton.printGraphToFile(output1);
+        }
+        output1.close();
+    }
+
+    /**Prints the airports to airportFrequencies.txt, highest frequency
+     * first.
+     * 
+     * @param yourGraph the graph holding the airport names
+     * @param frequency the frequency of each airport
+     * @throws FileNotFoundException if the file cannot be written
+     */
+    public static void printAirportFrequencies(Graph yourGraph,
+            int[] frequency) throws FileNotFoundException {
+        //prints the airport frequencies to a file
+        PrintWriter output2 = new PrintWriter("airportFrequencies.txt");
+        //Constructs and array of pairs to store frequencies & airport names
+        ArrayList<Pair> airportPairs = new ArrayList<Pair>();       
 
         //Stores the airport-frequency pairs into an array of pairs
         for (int i = 0; i < frequency.length; i++) {
@@ -186,23 +426,12 @@ public final class SkeletonGenerator {
         output2.close();        
     }
     
-    /**We need a STABLE sort to sort these values.
-     * This is a quick, simple, and dirty bubble sort, with highest first,
-     * modified from AlgoViz's bubble sort.
+    /**We need a STABLE sort to sort these values, highest first.
+     * List.sort is a stable merge sort, so this is O(n log n).
      * @param arr pair array to be sorted.
      */
     public static void sort(ArrayList<Pair> arr) {
-        for (int i = 0; i < arr.size() - 1; i++) {
-            for (int j = 1; j < arr.size() - i; j++) {
-                //if the previous value is less than the adjacent one, swaps
-                if (arr.get(j - 1).getWeight() < arr.get(j).getWeight()) {
-                    //swaps
-                    Pair temp = arr.get(j);
-                    arr.set(j, arr.get(j - 1));
-                    arr.set(j - 1, temp);
-                }
-            }
-        }
+        arr.sort((a, b) -> Integer.compare(b.getWeight(), a.getWeight()));
     }    
 }
 
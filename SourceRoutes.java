@@ -0,0 +1,97 @@
+import java.io.PrintWriter;
+
+/**The routes from one source airport under a segment threshold: the
+ * shortest route by mileage wherever it has no more than threshold
+ * segments, and otherwise the route with the fewest segments.
+ *
+ * @author smsukardi
+ */
+public class SourceRoutes {
+
+    /** The shortest paths by mileage. */
+    private ShortestPathTree mileage;
+    /** The shortest paths by no. of segments, or null if not needed. */
+    private ShortestPathTree segments;
+    /** The max. no. of segments of a route chosen by mileage. */
+    private int threshold;
+
+    /**Constructor.
+     * @param mileage the shortest paths by mileage
+     * @param segments the shortest paths by no. of segments, which may be
+     * null if no mileage path goes over the threshold
+     * @param threshold the threshold no. of segments
+     */
+    public SourceRoutes(ShortestPathTree mileage, ShortestPathTree segments,
+            int threshold) {
+        this.mileage = mileage;
+        this.segments = segments;
+        this.threshold = threshold;
+    }
+
+    /** Gets the source node.
+     * @return the source node
+     */
+    public int getSource() {
+        return this.mileage.getSource();
+    }
+
+    /** Gets the threshold no. of segments.
+     * @return the threshold
+     */
+    public int getThreshold() {
+        return this.threshold;
+    }
+
+    /** Gets the shortest paths by mileage.
+     * @return the mileage tree
+     */
+    public ShortestPathTree getMileageTree() {
+        return this.mileage;
+    }
+
+    /** Gets the shortest paths by no. of segments.
+     * @return the segment tree, or null if it was not needed
+     */
+    public ShortestPathTree getSegmentTree() {
+        return this.segments;
+    }
+
+    /**Returns the tree holding the route to a destination.
+     * @param dest the destination node
+     * @return the segment tree if the mileage path to dest is over the
+     * threshold, or the mileage tree if not
+     */
+    public ShortestPathTree treeFor(int dest) {
+        if (this.segments != null
+                && this.mileage.getHops(dest) > this.threshold) {
+            return this.segments;
+        }
+        return this.mileage;
+    }
+
+    /**Rebuilds the route to a destination.
+     * @param dest the destination node
+     * @return the nodes on the route, starting with the source
+     */
+    public int[] path(int dest) {
+        return this.treeFor(dest).path(dest);
+    }
+
+    /**Appends the route to a destination in the form A->B->C.
+     * @param dest the destination node
+     * @param yourGraph the graph holding the airport names
+     * @param output the text to append to
+     */
+    public void appendRoute(int dest, Graph yourGraph, StringBuilder output) {
+        this.treeFor(dest).appendRoute(dest, yourGraph, output);
+    }
+
+    /**Prints the route to a destination in the form A->B->C.
+     * @param dest the destination node
+     * @param yourGraph the graph holding the airport names
+     * @param output the file to print to
+     */
+    public void printRoute(int dest, Graph yourGraph, PrintWriter output) {
+        this.treeFor(dest).printRoute(dest, yourGraph, output);
+    }
+}